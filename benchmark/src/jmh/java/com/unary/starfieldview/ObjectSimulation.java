@@ -0,0 +1,257 @@
+package com.unary.starfieldview;
+
+/**
+ * Baseline simulation that keeps one object per star, the way the starfield used to. It is only
+ * here to compare storage layouts against {@link RadialSimulation}, so it draws from the same
+ * {@link StarRandom} source and ignores the tuning options.
+ */
+public class ObjectSimulation implements StarSimulation {
+
+    private static final float STATE_SCALE = Character.MAX_VALUE;
+
+    private float mHalfWidth;
+    private float mHalfHeight;
+    private float mRadius;
+    private float mSize;
+    private Star[] mStars;
+    private long mRespawns;
+    private long mSeed;
+    private long mSpawns;
+    private float mStepTime = 20;
+
+    /**
+     * Constructor to create a reproducible cluster of stars for the given width and height.
+     *
+     * @param width  The drawing width.
+     * @param height The drawing height.
+     * @param count  Number of stars to generate.
+     * @param size   Star size.
+     * @param seed   Random seed.
+     */
+    public ObjectSimulation(int width, int height, int count, float size, long seed) {
+        mSeed = seed;
+        mHalfWidth = width / 2f;
+        mHalfHeight = height / 2f;
+        mRadius = RadialSimulation.getOuterRadius(width, height);
+        mSize = size;
+        mStars = new Star[0];
+
+        setCount(count);
+    }
+
+    @Override
+    public void simulate(float elapsed, float speed) {
+        update(speed * elapsed / mStepTime);
+    }
+
+    @Override
+    public void update(float speed) {
+        for (Star star : mStars) {
+            star.previous = star.point;
+            star.point += star.delta * speed;
+
+            if (star.point < 0 || star.point > mRadius) {
+                generate(star);
+                mRespawns++;
+            }
+        }
+    }
+
+    @Override
+    public int resolve(float[] out) {
+        float scale = mSize / mRadius;
+        int visible = 0;
+
+        for (Star star : mStars) {
+            float radius = star.delta * star.point * scale;
+            float x = star.point * star.cos;
+            float y = star.point * star.sin;
+
+            if (Math.abs(x) - radius < mHalfWidth && Math.abs(y) - radius < mHalfHeight) {
+                out[visible * 3] = x;
+                out[visible * 3 + 1] = y;
+                out[visible * 3 + 2] = radius;
+                visible++;
+            }
+        }
+
+        return visible;
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        float radius = RadialSimulation.getOuterRadius(width, height);
+        float ratio = radius / mRadius;
+
+        mHalfWidth = width / 2f;
+        mHalfHeight = height / 2f;
+        mRadius = radius;
+
+        for (Star star : mStars) {
+            star.point *= ratio;
+            star.previous *= ratio;
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return mStars.length;
+    }
+
+    @Override
+    public void setCount(int count) {
+        Star[] stars = new Star[count];
+
+        for (int i = 0; i < count; i++) {
+            if (i < mStars.length) {
+                stars[i] = mStars[i];
+            } else {
+                stars[i] = new Star();
+                generate(stars[i]);
+            }
+        }
+
+        mStars = stars;
+    }
+
+    @Override
+    public float getSize() {
+        return mSize;
+    }
+
+    @Override
+    public void setSize(float size) {
+        mSize = size;
+    }
+
+    @Override
+    public long getRespawns() {
+        return mRespawns;
+    }
+
+    @Override
+    public int getCapacity() {
+        return mStars.length;
+    }
+
+    @Override
+    public void trimToSize() {
+    }
+
+    @Override
+    public char[] saveState(int maxCount) {
+        int count = Math.min(mStars.length, maxCount);
+        char[] state = new char[count * RadialSimulation.STATE_STRIDE];
+
+        for (int i = 0; i < count; i++) {
+            Star star = mStars[i];
+            double angle = Math.atan2(star.sin, star.cos);
+
+            state[i * 3] = (char) Math.round(angle / (2 * Math.PI) * (STATE_SCALE + 1));
+            state[i * 3 + 1] = (char) Math.round(Math.max(0, Math.min(1, star.point / mRadius)) * STATE_SCALE);
+            state[i * 3 + 2] = (char) Math.round(star.delta * STATE_SCALE);
+        }
+
+        return state;
+    }
+
+    @Override
+    public void restoreState(char[] state) {
+        int count = Math.min(mStars.length, state.length / RadialSimulation.STATE_STRIDE);
+
+        for (int i = 0; i < count; i++) {
+            Star star = mStars[i];
+            double angle = state[i * 3] / (STATE_SCALE + 1) * 2 * Math.PI;
+
+            star.cos = (float) Math.cos(angle);
+            star.sin = (float) Math.sin(angle);
+            star.point = star.previous = state[i * 3 + 1] / STATE_SCALE * mRadius;
+            star.delta = state[i * 3 + 2] / STATE_SCALE;
+        }
+    }
+
+    @Override
+    public long getSeed() {
+        return mSeed;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        mSeed = seed;
+        mSpawns = 0;
+
+        for (Star star : mStars) {
+            generate(star);
+        }
+    }
+
+    @Override
+    public int getSpawnMode() {
+        return RadialSimulation.SPAWN_DISC;
+    }
+
+    @Override
+    public float getStepTime() {
+        return mStepTime;
+    }
+
+    @Override
+    public void setStepTime(float stepTime) {
+        mStepTime = stepTime;
+    }
+
+    @Override
+    public boolean isParallel() {
+        return false;
+    }
+
+    @Override
+    public void setParallel(boolean parallel) {
+    }
+
+    @Override
+    public int getParallelThreshold() {
+        return 0;
+    }
+
+    @Override
+    public void setParallelThreshold(int parallelThreshold) {
+    }
+
+    @Override
+    public boolean isLookupTable() {
+        return false;
+    }
+
+    @Override
+    public void setLookupTable(boolean lookupTable) {
+    }
+
+    /**
+     * (Re)initialize a star with a random starting point and direction. Every spawn takes its own
+     * key, the same way the array layout keys each star.
+     *
+     * @param star Star to generate.
+     */
+    private void generate(Star star) {
+        long key = StarRandom.key(StarRandom.mix(mSeed), (int) mSpawns++);
+        double theta = 2 * Math.PI * StarRandom.nextFloat(key, 2);
+
+        star.point = star.previous = (float) (mRadius * Math.sqrt(StarRandom.nextFloat(key, 1)));
+        star.delta = (float) Math.sqrt(StarRandom.nextFloat(key, 0));
+        star.cos = (float) Math.cos(theta);
+        star.sin = (float) Math.sin(theta);
+    }
+
+    /**
+     * Mutable star object.
+     */
+    private static class Star {
+
+        float point;
+        float previous;
+        float delta;
+        float cos;
+        float sin;
+    }
+}
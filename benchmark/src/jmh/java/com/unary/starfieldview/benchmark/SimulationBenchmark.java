@@ -0,0 +1,80 @@
+package com.unary.starfieldview.benchmark;
+
+import com.unary.starfieldview.ObjectSimulation;
+import com.unary.starfieldview.RadialSimulation;
+import com.unary.starfieldview.StarSimulation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the star simulation hot loops across star counts and storage layouts. Run with
+ * <code>./gradlew :benchmark:jmh</code>. The GC profiler reports the allocation rate, which
+ * should stay at zero for the array layout.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SimulationBenchmark {
+
+    private static final int WIDTH = 1080; // px
+    private static final int HEIGHT = 1920; // px
+    private static final float SIZE = 5; // px
+    private static final float SPEED = 8;
+    private static final long SEED = 42;
+
+    @Param({"2000", "20000", "200000"})
+    public int count;
+
+    @Param({"arrays", "objects", "parallel"})
+    public String layout;
+
+    private StarSimulation mSimulation;
+    private float[] mResolved;
+
+    /**
+     * Build a fresh simulation for each trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (layout.equals("objects")) {
+            mSimulation = new ObjectSimulation(WIDTH, HEIGHT, count, SIZE, SEED);
+        } else {
+            RadialSimulation simulation = new RadialSimulation(WIDTH, HEIGHT, count, SIZE,
+                    RadialSimulation.SPAWN_DISC, SEED);
+            simulation.setParallel(layout.equals("parallel"));
+
+            mSimulation = simulation;
+        }
+
+        mResolved = new float[count * 3];
+    }
+
+    /**
+     * Advance every star by one step.
+     */
+    @Benchmark
+    public void update() {
+        mSimulation.update(SPEED);
+    }
+
+    /**
+     * Advance by a display frame and resolve the visible stars, as a frame does before drawing.
+     *
+     * @return Number of visible stars.
+     */
+    @Benchmark
+    public int simulateAndResolve() {
+        mSimulation.simulate(16.7f, SPEED);
+        return mSimulation.resolve(mResolved);
+    }
+}
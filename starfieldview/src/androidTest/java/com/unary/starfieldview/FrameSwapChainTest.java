@@ -0,0 +1,164 @@
+package com.unary.starfieldview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the frame swap chain. Frames are numbered by filling the buffer with the
+ * frame number, so the consumer can tell which frame it holds and whether it changed under it.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FrameSwapChainTest {
+
+    private static final int SIZE = 4;
+    private static final int FRAMES = 2000;
+    private static final int OPAQUE = 0xFF000000;
+
+    @Test
+    public void handoff_postedFrameIsFront() {
+        for (int buffering : new int[]{FrameSwapChain.DOUBLE_BUFFER, FrameSwapChain.TRIPLE_BUFFER}) {
+            FrameSwapChain swapChain = new FrameSwapChain(SIZE, SIZE, buffering);
+
+            for (int frame = 1; frame <= 10; frame++) {
+                assertNotNull(swapChain.lockCanvas());
+
+                Bitmap back = swapChain.getBackBitmap();
+                back.eraseColor(OPAQUE | frame);
+                swapChain.unlockCanvasAndPost();
+
+                Bitmap front = swapChain.acquireFront();
+                assertSame(back, front);
+                swapChain.releaseFront();
+
+                // Next frame fades from the one just posted
+                assertNotNull(swapChain.lockCanvas());
+                assertSame(back, swapChain.getPreviousBitmap());
+                assertNotSame(back, swapChain.getBackBitmap());
+                swapChain.unlockCanvasAndPost();
+                swapChain.acquireFront();
+                swapChain.releaseFront();
+            }
+        }
+    }
+
+    @Test
+    public void handoff_doubleBufferWaitsForRelease() {
+        FrameSwapChain swapChain = new FrameSwapChain(SIZE, SIZE, FrameSwapChain.DOUBLE_BUFFER);
+
+        assertNotNull(swapChain.lockCanvas());
+        swapChain.unlockCanvasAndPost();
+
+        // Posted frame not drawn yet
+        assertNull(swapChain.lockCanvas());
+
+        swapChain.acquireFront();
+        swapChain.releaseFront();
+
+        assertNotNull(swapChain.lockCanvas());
+    }
+
+    @Test
+    public void hasFrame_onlyAfterFirstPost() {
+        for (int buffering : new int[]{FrameSwapChain.DOUBLE_BUFFER, FrameSwapChain.TRIPLE_BUFFER}) {
+            FrameSwapChain swapChain = new FrameSwapChain(SIZE, SIZE, buffering);
+
+            assertFalse(swapChain.hasFrame());
+            assertNotNull(swapChain.lockCanvas());
+            assertFalse(swapChain.hasFrame());
+
+            swapChain.unlockCanvasAndPost();
+            assertTrue(swapChain.hasFrame());
+        }
+    }
+
+    @Test
+    public void handoff_concurrentProducerAndConsumer() throws InterruptedException {
+        for (int buffering : new int[]{FrameSwapChain.DOUBLE_BUFFER, FrameSwapChain.TRIPLE_BUFFER}) {
+            runProducerAndConsumer(new FrameSwapChain(SIZE, SIZE, buffering));
+        }
+    }
+
+    /**
+     * Run a producer thread posting numbered frames against a consumer thread drawing them. The
+     * consumer must only ever see frames in order, and never see its front buffer change while it
+     * holds it. The producer must always fade from the last frame it posted.
+     *
+     * @param swapChain Swap chain to test.
+     */
+    private static void runProducerAndConsumer(final FrameSwapChain swapChain) throws InterruptedException {
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                int posted = 0;
+
+                while (posted < FRAMES && failure.get() == null) {
+                    Canvas canvas = swapChain.lockCanvas();
+
+                    if (canvas == null) {
+                        Thread.yield();
+                        continue;
+                    }
+
+                    int previous = swapChain.getPreviousBitmap().getPixel(0, 0) & ~OPAQUE;
+
+                    if (posted > 0 && previous != posted) {
+                        failure.compareAndSet(null, "faded from " + previous + " after posting " + posted);
+                    }
+
+                    swapChain.getBackBitmap().eraseColor(OPAQUE | ++posted);
+                    swapChain.unlockCanvasAndPost();
+                }
+
+                done.set(true);
+            }
+        });
+
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                int seen = 0;
+
+                while (!done.get() && failure.get() == null) {
+                    Bitmap front = swapChain.acquireFront();
+                    int frame = front.getPixel(0, 0) & ~OPAQUE;
+
+                    if (frame < seen) {
+                        failure.compareAndSet(null, "saw " + frame + " after " + seen);
+                    }
+
+                    Thread.yield();
+
+                    // Producer must not write to a held buffer
+                    if ((front.getPixel(SIZE - 1, SIZE - 1) & ~OPAQUE) != frame) {
+                        failure.compareAndSet(null, "frame " + frame + " changed while held");
+                    }
+
+                    seen = frame;
+                    swapChain.releaseFront();
+                }
+            }
+        });
+
+        producer.start();
+        consumer.start();
+        producer.join(30000);
+        consumer.join(30000);
+
+        assertFalse("producer still running", producer.isAlive());
+        assertFalse("consumer still running", consumer.isAlive());
+        assertNull(failure.get(), failure.get());
+    }
+}
@@ -0,0 +1,225 @@
+package com.unary.starfieldview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented benchmark of the canvas and software pixel backends. Each frame is rendered into a
+ * triple buffered swap chain the same way {@link StarfieldView} does: the canvas backend copies
+ * only the lit trail tiles forward, and the pixel backend includes its upload. The simulation is
+ * advanced and frames are consumed outside of the timed part. Results are logged under
+ * {@value #TAG} as the median and mean time per frame.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RenderBenchmark {
+
+    private static final String TAG = "RenderBenchmark";
+    private static final int WIDTH = 1080; // px
+    private static final int HEIGHT = 1920; // px
+    private static final float SIZE = 5; // px
+    private static final float SPEED = 8;
+    private static final long SEED = 42;
+    private static final int STAR_COLOR = 0x8AFFFFFF;
+    private static final int FADE_ALPHA = 128;
+    private static final int WARM_UP_FRAMES = 10;
+    private static final int FRAMES = 60;
+    private static final int[] COUNTS = {2000, 20000, 200000};
+
+    @Test
+    public void render_canvasCircles() {
+        for (int count : COUNTS) {
+            report("canvas circles", count, runCanvas(count, CircularStarfield.RENDER_CIRCLES));
+        }
+    }
+
+    @Test
+    public void render_canvasPoints() {
+        for (int count : COUNTS) {
+            report("canvas points", count, runCanvas(count, CircularStarfield.RENDER_POINTS));
+        }
+    }
+
+    @Test
+    public void render_pixels() {
+        for (int count : COUNTS) {
+            report("pixels", count, runPixels(count));
+        }
+    }
+
+    /**
+     * Time frames drawn with the canvas, copying the lit tiles of the previous frame forward while
+     * fading them.
+     *
+     * @param count      Number of stars.
+     * @param renderMode Render mode of the starfield.
+     * @return Time of each measured frame in nanoseconds.
+     */
+    private static long[] runCanvas(int count, int renderMode) {
+        CircularStarfield starField = createStarField(count);
+        starField.setRenderMode(renderMode);
+
+        FrameSwapChain swapChain = new FrameSwapChain(WIDTH, HEIGHT, FrameSwapChain.TRIPLE_BUFFER);
+        TrailTiles trailTiles = new TrailTiles(WIDTH, HEIGHT);
+
+        Paint fadePaint = new Paint();
+        fadePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC));
+        fadePaint.setAlpha(FADE_ALPHA);
+
+        long[] times = new long[FRAMES];
+        int posted = 0;
+
+        for (int frame = 0; frame < WARM_UP_FRAMES + FRAMES; frame++) {
+            starField.update(SPEED);
+
+            long startTime = System.nanoTime();
+
+            Canvas canvas = swapChain.lockCanvas();
+
+            // Triple buffers never skip
+            if (canvas == null) continue;
+
+            Bitmap back = swapChain.getBackBitmap();
+
+            trailTiles.copyForward(canvas, back, swapChain.getPreviousBitmap(), fadePaint);
+            starField.render(canvas);
+            starField.markTiles(trailTiles, 1);
+            trailTiles.post(back);
+            swapChain.unlockCanvasAndPost();
+            posted++;
+
+            if (frame >= WARM_UP_FRAMES) {
+                times[frame - WARM_UP_FRAMES] = System.nanoTime() - startTime;
+            }
+
+            consume(swapChain);
+        }
+
+        assertRendered(starField, count, swapChain, posted);
+
+        return times;
+    }
+
+    /**
+     * Time frames drawn with the software rasterizer, including the upload to the back buffer.
+     *
+     * @param count Number of stars.
+     * @return Time of each measured frame in nanoseconds.
+     */
+    private static long[] runPixels(int count) {
+        CircularStarfield starField = createStarField(count);
+        PixelRasterizer rasterizer = new PixelRasterizer(WIDTH, HEIGHT, SIZE);
+        FrameSwapChain swapChain = new FrameSwapChain(WIDTH, HEIGHT, FrameSwapChain.TRIPLE_BUFFER);
+
+        long[] times = new long[FRAMES];
+        int posted = 0;
+
+        for (int frame = 0; frame < WARM_UP_FRAMES + FRAMES; frame++) {
+            starField.update(SPEED);
+
+            long startTime = System.nanoTime();
+
+            if (swapChain.lockCanvas() == null) continue;
+
+            rasterizer.fade(FADE_ALPHA * 256 / 255);
+            starField.render(rasterizer);
+            rasterizer.upload(swapChain.getBackBitmap());
+            swapChain.unlockCanvasAndPost();
+            posted++;
+
+            if (frame >= WARM_UP_FRAMES) {
+                times[frame - WARM_UP_FRAMES] = System.nanoTime() - startTime;
+            }
+
+            consume(swapChain);
+        }
+
+        assertRendered(starField, count, swapChain, posted);
+
+        return times;
+    }
+
+    /**
+     * Take the newest frame off the swap chain, as the UI thread does when drawing it.
+     *
+     * @param swapChain Swap chain to consume.
+     */
+    private static void consume(FrameSwapChain swapChain) {
+        swapChain.acquireFront();
+        swapChain.releaseFront();
+    }
+
+    /**
+     * Check that a run posted every frame it was asked for at the requested star count, and that
+     * the last one holds stars.
+     *
+     * @param starField Starfield that was rendered.
+     * @param count     Requested number of stars.
+     * @param swapChain Swap chain that was rendered into.
+     * @param posted    Number of frames posted.
+     */
+    private static void assertRendered(CircularStarfield starField, int count, FrameSwapChain swapChain, int posted) {
+        assertEquals(count, starField.getCount());
+        assertEquals(WARM_UP_FRAMES + FRAMES, posted);
+
+        Bitmap front = swapChain.acquireFront();
+        assertFalse("blank frame at " + count + " stars", front.sameAs(createBitmap()));
+        swapChain.releaseFront();
+    }
+
+    /**
+     * Create a reproducible starfield the size of a typical phone screen.
+     *
+     * @param count Number of stars.
+     * @return New starfield.
+     */
+    private static CircularStarfield createStarField(int count) {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(STAR_COLOR);
+
+        return new CircularStarfield(WIDTH, HEIGHT, count, SIZE, paint, CircularStarfield.SPAWN_DISC, SEED);
+    }
+
+    /**
+     * Create a blank bitmap the size of the starfield.
+     *
+     * @return New bitmap.
+     */
+    private static Bitmap createBitmap() {
+        return Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Log the median and mean frame time of a run.
+     *
+     * @param backend Name of the backend.
+     * @param count   Number of stars.
+     * @param times   Time of each frame in nanoseconds.
+     */
+    private static void report(String backend, int count, long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+
+        long total = 0;
+
+        for (long time : sorted) {
+            total += time;
+        }
+
+        Log.i(TAG, String.format(Locale.US, "%s, %d stars: median %.2f ms, mean %.2f ms", backend, count,
+                sorted[sorted.length / 2] / 1e6, total / 1e6 / sorted.length));
+    }
+}
@@ -0,0 +1,110 @@
+package com.unary.starfieldview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented test of the configuration handoff. The UI thread publishes configurations as fast as
+ * it can while another thread applies them and renders, standing in for the animator thread. The
+ * view is never attached, so nothing else ticks it.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StarfieldViewConfigTest {
+
+    private static final int WIDTH = 540; // px
+    private static final int HEIGHT = 960; // px
+    private static final int PUBLISHES = 2000;
+    private static final int FINAL_COUNT = 1234;
+    private static final long FINAL_SEED = 7;
+    private static final long FRAME_TIME = 16; // ms
+    private static final int SETTLE_FRAMES = 100;
+
+    @Test
+    public void publishConfig_whileApplying() throws InterruptedException {
+        final AtomicReference<StarfieldView> viewRef = new AtomicReference<>();
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                StarfieldView view = new StarfieldView(InstrumentationRegistry.getInstrumentation().getTargetContext());
+                view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+                view.layout(0, 0, WIDTH, HEIGHT);
+                viewRef.set(view);
+            }
+        });
+
+        final StarfieldView view = viewRef.get();
+
+        Thread animator = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (long time = 0; !done.get(); time += FRAME_TIME) {
+                        view.onTimeUpdate(null, time, FRAME_TIME);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        });
+        animator.start();
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+                for (int i = 0; i < PUBLISHES && failure.get() == null; i++) {
+                    view.setStarCount(100 + i % 50 * 100);
+                    view.setStarSize(2 + i % 7);
+                    view.setStarSpeed(1 + i % 9);
+                    view.setStarAlpha(i % 10 / 10f);
+                    view.setStarColor(0xFF000000 | i * 0x010203);
+                    view.setStarSeed(i);
+
+                    // Frames are drawn while they are published
+                    view.draw(canvas);
+                }
+
+                view.setStarCount(FINAL_COUNT);
+                view.setStarSeed(FINAL_SEED);
+            }
+        });
+
+        done.set(true);
+        animator.join(30000);
+        assertFalse("animator still running", animator.isAlive());
+        assertNull(String.valueOf(failure.get()), failure.get());
+
+        // Last configuration applied and packed
+        for (int i = 0; i < SETTLE_FRAMES; i++) {
+            view.onTimeUpdate(null, i * FRAME_TIME, FRAME_TIME);
+        }
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                StarfieldView.SavedState state = (StarfieldView.SavedState) view.onSaveInstanceState();
+
+                assertEquals(FINAL_SEED, state.mSeed);
+                assertNotNull(state.mStars);
+                assertEquals(FINAL_COUNT * RadialSimulation.STATE_STRIDE, state.mStars.length);
+            }
+        });
+    }
+}
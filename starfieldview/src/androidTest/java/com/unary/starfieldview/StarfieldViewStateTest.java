@@ -0,0 +1,150 @@
+package com.unary.starfieldview;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Parcel;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the saved state of the starfield view. Views are never attached, so time
+ * updates are called directly and nothing runs on the shared animator thread. The window
+ * visibility never changes, like a configuration change that relaunches the activity.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StarfieldViewStateTest {
+
+    private static final int WIDTH = 540; // px
+    private static final int HEIGHT = 960; // px
+    private static final int COUNT = 500;
+    private static final long SEED = 42;
+    private static final long FRAME_TIME = 16; // ms
+
+    @Test
+    public void saveState_keepsStarsWithoutVisibilityChange() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                StarfieldView first = createView();
+                tick(first, 1);
+
+                StarfieldView.SavedState saved = parcel(first.onSaveInstanceState());
+                assertNotNull("first save has no stars", saved.mStars);
+                assertEquals(COUNT * RadialSimulation.STATE_STRIDE, saved.mStars.length);
+                assertEquals(SEED, saved.mSeed);
+
+                // Relaunched view saves again before and after its first update
+                StarfieldView second = createView();
+                second.onRestoreInstanceState(saved);
+
+                assertArrayEquals(saved.mStars, parcel(second.onSaveInstanceState()).mStars);
+
+                tick(second, 1);
+
+                StarfieldView.SavedState resaved = parcel(second.onSaveInstanceState());
+                assertEquals(SEED, resaved.mSeed);
+                assertStarsClose(saved.mStars, resaved.mStars);
+            }
+        });
+    }
+
+    @Test
+    public void saveState_followsTheStars() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                StarfieldView view = createView();
+                tick(view, 1);
+
+                char[] before = parcel(view.onSaveInstanceState()).mStars;
+
+                // Longer than the snapshot interval
+                tick(view, 100);
+
+                char[] after = parcel(view.onSaveInstanceState()).mStars;
+                assertNotNull(after);
+                assertFalse(Arrays.equals(before, after));
+            }
+        });
+    }
+
+    /**
+     * Create a laid out view with a reproducible starfield.
+     *
+     * @return New view.
+     */
+    private static StarfieldView createView() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        StarfieldView view = new StarfieldView(context);
+
+        view.setStarCount(COUNT);
+        view.setStarSeed(SEED);
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+
+        return view;
+    }
+
+    /**
+     * Advance a view by a number of display frames, as the animator thread would, drawing each one
+     * so that double buffers are handed back.
+     *
+     * @param view   View to advance.
+     * @param frames Number of frames.
+     */
+    private static void tick(StarfieldView view, int frames) {
+        Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+        for (int i = 0; i < frames; i++) {
+            view.onTimeUpdate(null, i * FRAME_TIME, FRAME_TIME);
+            view.draw(canvas);
+        }
+    }
+
+    /**
+     * Write a saved state to a parcel and read it back, as the system does across a relaunch.
+     *
+     * @param state Saved state.
+     * @return State read back.
+     */
+    private static StarfieldView.SavedState parcel(Object state) {
+        Parcel parcel = Parcel.obtain();
+
+        try {
+            ((StarfieldView.SavedState) state).writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+
+            return StarfieldView.SavedState.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * Check that stars packed again after a restore match within a step of quantization.
+     * Angles wrap around.
+     *
+     * @param expected Stars that were restored.
+     * @param actual   Stars saved afterwards.
+     */
+    private static void assertStarsClose(char[] expected, char[] actual) {
+        assertNotNull(actual);
+        assertEquals(expected.length, actual.length);
+
+        for (int i = 0; i < expected.length; i++) {
+            char difference = (char) (expected[i] - actual[i]);
+            assertTrue("value " + i, difference <= 1 || difference == Character.MAX_VALUE);
+        }
+    }
+}
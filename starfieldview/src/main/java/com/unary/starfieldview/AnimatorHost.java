@@ -0,0 +1,157 @@
+package com.unary.starfieldview;
+
+import android.animation.TimeAnimator;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a view registered with the shared animator thread while it is attached. Views forward their
+ * window callbacks here, so the registration plumbing lives in one place.
+ */
+final class AnimatorHost {
+
+    private final View mView;
+    private final TimeAnimator.TimeListener mTimeListener;
+    private volatile AnimatorScheduler.Registration mRegistration;
+    private AnimatorScheduler.Registration mPrevious;
+    private final List<Runnable> mQueuedEvents = new ArrayList<>();
+    private boolean mRunning = true;
+    private int mPacing = AnimatorThread.PACING_ANIMATOR;
+
+    /**
+     * Constructor for the host of a view.
+     *
+     * @param view         View to host.
+     * @param timeListener Listener for time updates on the animator thread.
+     */
+    AnimatorHost(@NonNull View view, @NonNull TimeAnimator.TimeListener timeListener) {
+        mView = view;
+        mTimeListener = timeListener;
+    }
+
+    /**
+     * Called when the view is attached to a window.
+     */
+    void attach() {
+        register();
+    }
+
+    /**
+     * Called when the window visibility changes.
+     *
+     * @param visible True if the window is visible.
+     */
+    void setVisible(boolean visible) {
+        if (mRegistration != null) {
+            mRegistration.setVisible(visible);
+        }
+    }
+
+    /**
+     * Called when the view is detached from its window.
+     */
+    void detach() {
+        // Work queued from here on waits for the next registration
+        synchronized (mQueuedEvents) {
+            mRegistration.unregister();
+            mPrevious = mRegistration;
+            mRegistration = null;
+        }
+    }
+
+    /**
+     * Register with the shared scheduler for the current pacing mode. The listener is not ticked
+     * until its previous registration is done with it, which may be on another thread.
+     */
+    private void register() {
+        AnimatorScheduler.Registration registration = AnimatorScheduler.register(mTimeListener, mPacing, mPrevious);
+        mPrevious = null;
+
+        synchronized (mQueuedEvents) {
+            mRegistration = registration;
+
+            // Catch up on work queued while detached
+            for (Runnable runnable : mQueuedEvents) {
+                registration.post(runnable);
+            }
+
+            mQueuedEvents.clear();
+        }
+
+        registration.setRunning(mRunning);
+        registration.setVisible(mView.getWindowVisibility() == View.VISIBLE);
+    }
+
+    /**
+     * Get the way time updates are paced.
+     *
+     * @return Either {@link AnimatorThread#PACING_ANIMATOR} or {@link AnimatorThread#PACING_VSYNC}.
+     */
+    int getPacing() {
+        return mPacing;
+    }
+
+    /**
+     * Set the way time updates are paced.
+     *
+     * @param pacing Either {@link AnimatorThread#PACING_ANIMATOR} or {@link AnimatorThread#PACING_VSYNC}.
+     */
+    void setPacing(int pacing) {
+        if (pacing == mPacing) return;
+
+        mPacing = pacing;
+
+        // Move to the other scheduler
+        if (mRegistration != null) {
+            detach();
+            register();
+        }
+    }
+
+    /**
+     * Get the number of frames the shared animator thread skipped for starting late.
+     *
+     * @return Skipped frames, or zero when not attached.
+     */
+    long getSkippedFrames() {
+        // Read once, it is cleared on the UI thread
+        AnimatorScheduler.Registration registration = mRegistration;
+
+        if (registration == null) return 0;
+
+        return registration.getScheduler().getAnimatorThread().getSkippedFrames();
+    }
+
+    /**
+     * Run something on the animator thread between time updates. Work queued while not attached
+     * waits for the next attach, and the same runnable is only held once.
+     *
+     * @param runnable Work to run.
+     */
+    void queueEvent(@NonNull Runnable runnable) {
+        synchronized (mQueuedEvents) {
+            if (mRegistration != null) {
+                mRegistration.post(runnable);
+            } else if (!mQueuedEvents.contains(runnable)) {
+                mQueuedEvents.add(runnable);
+            }
+        }
+    }
+
+    /**
+     * Start or stop the animator. It only runs while the window is visible.
+     *
+     * @param running True to run.
+     */
+    void setRunning(boolean running) {
+        mRunning = running;
+
+        if (mRegistration != null) {
+            mRegistration.setRunning(running);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.unary.starfieldview;
+
+import android.animation.TimeAnimator;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reference counted scheduler that shares a single animator thread between every animator view.
+ * One time animator ticks all of the started registrations in a single pass, and it is cancelled
+ * whenever none are started. There is one shared scheduler for each pacing mode.
+ *
+ * <p>A listener moved to another scheduler is held there until its previous registration has
+ * been retired on the old thread, so it is never ticked from two threads at once.</p>
+ */
+public class AnimatorScheduler implements TimeAnimator.TimeListener {
+
+    private static final AnimatorScheduler[] sInstances = new AnimatorScheduler[2];
+
+    private final AnimatorThread mAnimatorThread;
+    private final int mPacing;
+    private int mReferences;
+    private Registration[] mStarted;
+    private long mClock;
+
+    /**
+     * Constructor that starts the shared animator thread.
+     *
+     * @param pacing Either {@link AnimatorThread#PACING_ANIMATOR} or {@link AnimatorThread#PACING_VSYNC}.
+     */
+    private AnimatorScheduler(int pacing) {
+        mAnimatorThread = new AnimatorThread(this, pacing);
+        mAnimatorThread.start();
+        mPacing = pacing;
+        mStarted = new Registration[0];
+    }
+
+    /**
+     * Register a time listener with the shared scheduler for a pacing mode. This holds a reference
+     * to the scheduler until the registration is unregistered. It is not ticked until it is both
+     * running and visible.
+     *
+     * @param timeListener Time animator listener.
+     * @param pacing       Either {@link AnimatorThread#PACING_ANIMATOR} or {@link AnimatorThread#PACING_VSYNC}.
+     * @return Registration to control the listener.
+     */
+    @NonNull
+    public static Registration register(@NonNull TimeAnimator.TimeListener timeListener, int pacing) {
+        return register(timeListener, pacing, null);
+    }
+
+    /**
+     * Register a time listener that is moving from an earlier registration. Nothing posted to the
+     * new registration runs, and it is not ticked, until the earlier one has been unregistered and
+     * retired on its own thread.
+     *
+     * @param timeListener Time animator listener.
+     * @param pacing       Either {@link AnimatorThread#PACING_ANIMATOR} or {@link AnimatorThread#PACING_VSYNC}.
+     * @param previous     Earlier registration of the listener, or null.
+     * @return Registration to control the listener.
+     */
+    @NonNull
+    public static synchronized Registration register(@NonNull TimeAnimator.TimeListener timeListener, int pacing,
+                                                     @Nullable Registration previous) {
+        pacing = pacing == AnimatorThread.PACING_VSYNC ? pacing : AnimatorThread.PACING_ANIMATOR;
+
+        if (sInstances[pacing] == null) {
+            sInstances[pacing] = new AnimatorScheduler(pacing);
+        }
+
+        AnimatorScheduler scheduler = sInstances[pacing];
+        scheduler.mReferences++;
+
+        Registration registration = scheduler.new Registration(timeListener);
+
+        // Wait for the old thread to finish with the listener
+        if (previous != null && !previous.mRetired) {
+            registration.mHeld = true;
+            previous.mSuccessor = registration;
+        }
+
+        return registration;
+    }
+
+    /**
+     * Let go of a reference to a shared scheduler. The animator thread quits with the last one.
+     *
+     * @param scheduler Shared scheduler.
+     */
+    private static synchronized void release(@NonNull AnimatorScheduler scheduler) {
+        if (--scheduler.mReferences == 0) {
+            scheduler.mAnimatorThread.interrupt();
+            sInstances[scheduler.mPacing] = null;
+        }
+    }
+
+    /**
+     * Get the shared animator thread.
+     *
+     * @return Animator thread.
+     */
+    @NonNull
+    public AnimatorThread getAnimatorThread() {
+        return mAnimatorThread;
+    }
+
+    @Override
+    public void onTimeUpdate(TimeAnimator animation, long totalTime, long deltaTime) {
+        mClock += deltaTime;
+
+        Registration[] started = mStarted;
+
+        for (int i = 0; i < started.length; i++) {
+            started[i].dispatch(animation, mClock);
+        }
+    }
+
+    /**
+     * Called on the animator thread to start or stop ticking a registration. The started array is
+     * replaced rather than changed, so a pass in progress is not disturbed.
+     *
+     * @param registration Registration to update.
+     */
+    private void update(@NonNull Registration registration) {
+        boolean active = registration.mRunning && registration.mVisible && !registration.mUnregistered
+                && !registration.isHeld();
+        int index = Arrays.asList(mStarted).indexOf(registration);
+
+        if (active && index < 0) {
+            registration.mStartTime = mClock;
+            registration.mLastTime = -1;
+
+            mStarted = Arrays.copyOf(mStarted, mStarted.length + 1);
+            mStarted[mStarted.length - 1] = registration;
+
+            if (mStarted.length == 1) {
+                mAnimatorThread.startAnimator();
+            }
+        } else if (!active && index >= 0) {
+            Registration[] started = new Registration[mStarted.length - 1];
+
+            System.arraycopy(mStarted, 0, started, 0, index);
+            System.arraycopy(mStarted, index + 1, started, index, started.length - index);
+            mStarted = started;
+
+            if (mStarted.length == 0) {
+                mAnimatorThread.cancelAnimator();
+            }
+        }
+
+        // Never ticked again from this thread
+        if (registration.mUnregistered) {
+            registration.retire();
+        }
+    }
+
+    /**
+     * A time listener registered with the scheduler. It tracks its own visibility and running
+     * state, and sees time as if it had its own animator.
+     */
+    public class Registration {
+
+        private final TimeAnimator.TimeListener mTimeListener;
+        private final Runnable mUpdateRunnable;
+        private final List<Runnable> mHeldWork = new ArrayList<>();
+        private volatile boolean mRunning = true;
+        private volatile boolean mVisible;
+        private volatile boolean mUnregistered;
+        private boolean mHeld;
+        private boolean mRetired;
+        private Registration mSuccessor;
+        private long mStartTime;
+        private long mLastTime;
+
+        /**
+         * Constructor for a registration of the given listener.
+         *
+         * @param timeListener Time animator listener.
+         */
+        private Registration(@NonNull TimeAnimator.TimeListener timeListener) {
+            mTimeListener = timeListener;
+
+            // Reusable runnable
+            mUpdateRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    update(Registration.this);
+                }
+            };
+        }
+
+        /**
+         * Set if the listener should be ticked, like starting or cancelling an animator.
+         *
+         * @param running True if running.
+         */
+        public void setRunning(boolean running) {
+            mRunning = running;
+            post(mUpdateRunnable);
+        }
+
+        /**
+         * Set if the owner of the listener is visible. Hidden listeners are not ticked.
+         *
+         * @param visible True if visible.
+         */
+        public void setVisible(boolean visible) {
+            mVisible = visible;
+            post(mUpdateRunnable);
+        }
+
+        /**
+         * Stop ticking the listener for good. The scheduler is let go of once the animator thread
+         * is done with the listener.
+         */
+        public void unregister() {
+            if (mUnregistered) return;
+
+            mUnregistered = true;
+            post(mUpdateRunnable);
+        }
+
+        /**
+         * Called on the animator thread once the listener is no longer ticked here. The scheduler is
+         * released and a registration waiting on this one can start.
+         */
+        private void retire() {
+            Registration successor;
+
+            synchronized (AnimatorScheduler.class) {
+                if (mRetired) return;
+
+                mRetired = true;
+                successor = mSuccessor;
+            }
+
+            release(AnimatorScheduler.this);
+
+            if (successor != null) {
+                successor.resume();
+            }
+        }
+
+        /**
+         * Let a held registration run the work posted to it, in order, and be ticked.
+         */
+        private void resume() {
+            synchronized (AnimatorScheduler.class) {
+                mHeld = false;
+
+                for (Runnable runnable : mHeldWork) {
+                    mAnimatorThread.post(runnable);
+                }
+
+                mHeldWork.clear();
+            }
+
+            post(mUpdateRunnable);
+        }
+
+        /**
+         * Check if the registration still waits on an earlier one.
+         *
+         * @return True if held.
+         */
+        private boolean isHeld() {
+            synchronized (AnimatorScheduler.class) {
+                return mHeld;
+            }
+        }
+
+        /**
+         * Get the scheduler this registration belongs to.
+         *
+         * @return Shared scheduler.
+         */
+        @NonNull
+        public AnimatorScheduler getScheduler() {
+            return AnimatorScheduler.this;
+        }
+
+        /**
+         * Run something on the shared animator thread between time updates.
+         *
+         * @param runnable Work to run.
+         */
+        public void post(@NonNull Runnable runnable) {
+            synchronized (AnimatorScheduler.class) {
+                if (mHeld) {
+                    mHeldWork.add(runnable);
+                    return;
+                }
+            }
+
+            mAnimatorThread.post(runnable);
+        }
+
+        /**
+         * Called on the animator thread to tick the listener.
+         *
+         * @param animation Shared animator.
+         * @param clock     Scheduler time.
+         */
+        private void dispatch(TimeAnimator animation, long clock) {
+            if (mUnregistered) return;
+
+            long deltaTime = mLastTime < 0 ? 0 : clock - mLastTime;
+            mLastTime = clock;
+
+            mTimeListener.onTimeUpdate(animation, clock - mStartTime, deltaTime);
+        }
+    }
+}
@@ -3,21 +3,49 @@ package com.unary.starfieldview;
 import android.animation.TimeAnimator;
 import android.os.Handler;
 import android.os.Looper;
+import android.view.Choreographer;
 
 import androidx.annotation.CallSuper;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
- * Custom thread with a looper and a handler to manage the lifecycle of a time animator.
+ * Custom thread with a looper and a handler to manage the lifecycle of a time animator. It can
+ * instead be paced by choreographer frame callbacks, so that updates line up with the display.
  */
 public class AnimatorThread extends Thread {
 
+    /**
+     * Pacing driven by a time animator.
+     */
+    public static final int PACING_ANIMATOR = 0;
+
+    /**
+     * Pacing driven by choreographer frame callbacks at each vsync. Frames that start more than one
+     * vsync late are skipped.
+     */
+    public static final int PACING_VSYNC = 1;
+
+    private static final long FRAME_PERIOD = 16666667; // ns
+
+    private final int mPacing;
     private Handler mHandler;
     private TimeAnimator mTimeAnimator;
     private TimeAnimator.TimeListener mTimeListener;
     private Runnable mStartRunnable;
     private Runnable mCancelRunnable;
-    private boolean mStart;
+    private Runnable mQuitRunnable;
+    private final List<Runnable> mPending = new ArrayList<>();
+    private Choreographer mChoreographer;
+    private Choreographer.FrameCallback mFrameCallback;
+    private long mFirstFrameTime;
+    private long mLastFrameTime;
+    private long mVsyncTime;
+    private long mFramePeriod = FRAME_PERIOD;
+    private volatile long mSkippedFrames;
 
     /**
      * Constructor for the animator thread with a reference to a time animator listener.
@@ -25,15 +53,26 @@ public class AnimatorThread extends Thread {
      * @param timeListener Time animator listener.
      */
     public AnimatorThread(@Nullable TimeAnimator.TimeListener timeListener) {
+        this(timeListener, PACING_ANIMATOR);
+    }
+
+    /**
+     * Constructor for the animator thread with a time animator listener and a pacing mode.
+     *
+     * @param timeListener Time animator listener.
+     * @param pacing       Either {@link #PACING_ANIMATOR} or {@link #PACING_VSYNC}.
+     */
+    public AnimatorThread(@Nullable TimeAnimator.TimeListener timeListener, int pacing) {
         super();
 
         mTimeListener = timeListener;
+        mPacing = pacing;
 
         // Reusable runnable
         mStartRunnable = new Runnable() {
             @Override
             public void run() {
-                mTimeAnimator.start();
+                startPacing();
             }
         };
 
@@ -41,7 +80,17 @@ public class AnimatorThread extends Thread {
         mCancelRunnable = new Runnable() {
             @Override
             public void run() {
-                mTimeAnimator.cancel();
+                cancelPacing();
+            }
+        };
+
+        // Reusable runnable
+        mQuitRunnable = new Runnable() {
+            @Override
+            public void run() {
+                cancelPacing();
+                mTimeAnimator.removeAllListeners();
+                Looper.myLooper().quit();
             }
         };
     }
@@ -52,13 +101,28 @@ public class AnimatorThread extends Thread {
         Looper.prepare();
 
         // Provision the animator
-        mHandler = new Handler();
         mTimeAnimator = new TimeAnimator();
         mTimeAnimator.setTimeListener(mTimeListener);
 
-        // Catch up on off-thread request
-        if (mStart) {
-            mTimeAnimator.start();
+        if (mPacing == PACING_VSYNC) {
+            mChoreographer = Choreographer.getInstance();
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    onFrame(frameTimeNanos);
+                }
+            };
+        }
+
+        synchronized (mPending) {
+            mHandler = new Handler();
+
+            // Catch up on queued work
+            for (Runnable runnable : mPending) {
+                mHandler.post(runnable);
+            }
+
+            mPending.clear();
         }
 
         Looper.loop();
@@ -69,36 +133,117 @@ public class AnimatorThread extends Thread {
     public void interrupt() {
         super.interrupt();
 
-        // Cleanup before quitting
-        if (mTimeAnimator != null) {
-            mTimeAnimator.removeAllListeners();
-            cancelAnimator();
+        // Cleanup on the thread itself after any queued work
+        post(mQuitRunnable);
+    }
+
+    /**
+     * Run something on the animator thread between updates. Work posted before the thread is ready
+     * is queued until it is.
+     *
+     * @param runnable Work to run.
+     */
+    public void post(@NonNull Runnable runnable) {
+        synchronized (mPending) {
+            if (mHandler != null) {
+                mHandler.post(runnable);
+            } else {
+                mPending.add(runnable);
+            }
+        }
+    }
+
+    /**
+     * Get the way updates are paced.
+     *
+     * @return Either {@link #PACING_ANIMATOR} or {@link #PACING_VSYNC}.
+     */
+    public int getPacing() {
+        return mPacing;
+    }
+
+    /**
+     * Get the number of frames skipped for starting more than one vsync late.
+     *
+     * @return Skipped frames.
+     */
+    public long getSkippedFrames() {
+        return mSkippedFrames;
+    }
+
+    /**
+     * Start the time animator or the frame callbacks on the animator thread.
+     */
+    private void startPacing() {
+        if (mChoreographer != null) {
+            mLastFrameTime = 0;
+            mChoreographer.removeFrameCallback(mFrameCallback);
+            mChoreographer.postFrameCallback(mFrameCallback);
+        } else {
+            mTimeAnimator.start();
         }
+    }
 
-        if (mHandler != null) {
-            mHandler.getLooper().quit();
+    /**
+     * Cancel the time animator or the frame callbacks on the animator thread.
+     */
+    private void cancelPacing() {
+        if (mChoreographer != null) {
+            mChoreographer.removeFrameCallback(mFrameCallback);
+        } else {
+            mTimeAnimator.cancel();
         }
     }
 
     /**
-     * Composition method to post on the animator thread and start the animator.
+     * Called on each vsync when paced by the choreographer. Time is handed to the listener as if it
+     * came from the time animator.
+     *
+     * @param frameTimeNanos Vsync time of the frame.
      */
-    public void startAnimator() {
-        mStart = true;
+    private void onFrame(long frameTimeNanos) {
+        mChoreographer.postFrameCallback(mFrameCallback);
+
+        // Learn the refresh period from on-time frames
+        long interval = frameTimeNanos - mVsyncTime;
+        mVsyncTime = frameTimeNanos;
+
+        if (interval > 0 && interval < mFramePeriod * 3 / 2) {
+            mFramePeriod = (mFramePeriod * 7 + interval) / 8;
+        }
 
-        if (mHandler != null && mTimeAnimator != null) {
-            mHandler.post(mStartRunnable);
+        if (mLastFrameTime == 0) {
+            mFirstFrameTime = mLastFrameTime = frameTimeNanos;
+            return;
         }
+
+        // Never show a frame more than a vsync old
+        if (System.nanoTime() - frameTimeNanos > mFramePeriod) {
+            mSkippedFrames++;
+            return;
+        }
+
+        long totalTime = (frameTimeNanos - mFirstFrameTime) / 1000000;
+        long deltaTime = totalTime - (mLastFrameTime - mFirstFrameTime) / 1000000;
+        mLastFrameTime = frameTimeNanos;
+
+        if (mTimeListener != null) {
+            mTimeListener.onTimeUpdate(mTimeAnimator, totalTime, deltaTime);
+        }
+    }
+
+    /**
+     * Composition method to post on the animator thread and start the animator. Requests made
+     * before the thread is ready are kept in order with any other queued work.
+     */
+    public void startAnimator() {
+        post(mStartRunnable);
     }
 
     /**
      * Composition method to post on the animator thread and cancel the animator.
      */
     public void cancelAnimator() {
-        mStart = false;
-
-        if (mHandler != null && mTimeAnimator != null) {
-            mHandler.post(mCancelRunnable);
-        }
+        post(mCancelRunnable);
     }
 }
\ No newline at end of file
@@ -6,15 +6,16 @@ import android.os.Build;
 import android.util.AttributeSet;
 import android.view.View;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.RequiresApi;
 
 /**
- * Abstract class for the animator view. This places the animator and callback on a new thread.
- * Implementations should post results to the UI thread.
+ * Abstract class for the animator view. This places the animator and callback on a thread shared
+ * by every attached animator view. Implementations should post results to the UI thread.
  */
 public abstract class AnimatorView extends View implements TimeAnimator.TimeListener {
 
-    private AnimatorThread mAnimatorThread;
+    private final AnimatorHost mAnimatorHost = new AnimatorHost(this, this);
 
     /**
      * Simple constructor to use when creating the view from code.
@@ -63,38 +64,73 @@ public abstract class AnimatorView extends View implements TimeAnimator.TimeList
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
 
-        mAnimatorThread = new AnimatorThread(this);
-        mAnimatorThread.start();
+        mAnimatorHost.attach();
     }
 
     @Override
     protected void onWindowVisibilityChanged(int visibility) {
         super.onWindowVisibilityChanged(visibility);
 
-        if (visibility == VISIBLE) {
-            mAnimatorThread.startAnimator();
-        } else {
-            mAnimatorThread.cancelAnimator();
-        }
+        mAnimatorHost.setVisible(visibility == VISIBLE);
     }
 
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
-        mAnimatorThread.interrupt();
+
+        mAnimatorHost.detach();
+    }
+
+    /**
+     * Get the way time updates are paced.
+     *
+     * @return Either {@link AnimatorThread#PACING_ANIMATOR} or {@link AnimatorThread#PACING_VSYNC}.
+     */
+    public int getPacing() {
+        return mAnimatorHost.getPacing();
+    }
+
+    /**
+     * Set the way time updates are paced. Vsync pacing lines updates up with the display and skips
+     * frames that would be shown late.
+     *
+     * @param pacing Either {@link AnimatorThread#PACING_ANIMATOR} or {@link AnimatorThread#PACING_VSYNC}.
+     */
+    public void setPacing(int pacing) {
+        mAnimatorHost.setPacing(pacing);
+    }
+
+    /**
+     * Get the number of frames the shared animator thread skipped for starting more than one vsync
+     * late. Only vsync pacing skips frames.
+     *
+     * @return Skipped frames, or zero when not attached.
+     */
+    public long getSkippedFrames() {
+        return mAnimatorHost.getSkippedFrames();
+    }
+
+    /**
+     * Run something on the animator thread between time updates. When the view is not attached
+     * it waits until the view is attached again.
+     *
+     * @param runnable Work to run.
+     */
+    public void queueEvent(@NonNull Runnable runnable) {
+        mAnimatorHost.queueEvent(runnable);
     }
 
     /**
-     * Start the animator.
+     * Start the animator. It only runs while the window is visible.
      */
     public void start() {
-        mAnimatorThread.startAnimator();
+        mAnimatorHost.setRunning(true);
     }
 
     /**
      * Stop the animator.
      */
     public void stop() {
-        mAnimatorThread.cancelAnimator();
+        mAnimatorHost.setRunning(false);
     }
 }
\ No newline at end of file
@@ -2,22 +2,53 @@ package com.unary.starfieldview;
 
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.graphics.PointF;
 
 import androidx.annotation.NonNull;
 
+import java.util.Arrays;
+
 /**
- * Create and animate a cluster of stars in a radial starfield. This moves each star based on how
- * close it appears in the field.
+ * Create and animate a cluster of stars in a radial starfield. The star math lives in a
+ * {@link RadialSimulation}, and this class draws the stars it resolves with a canvas or a software
+ * rasterizer.
  */
 public class CircularStarfield {
 
+    /**
+     * Render mode that draws each star as its own circle.
+     */
+    public static final int RENDER_CIRCLES = 0;
+
+    /**
+     * Render mode that batches stars of a similar size into one call to draw round points.
+     */
+    public static final int RENDER_POINTS = 1;
+
+    /**
+     * Spawn mode that places stars evenly over the disc around the drawing rectangle.
+     */
+    public static final int SPAWN_DISC = RadialSimulation.SPAWN_DISC;
+
+    /**
+     * Spawn mode that places stars evenly over the drawing rectangle only. The star count is reduced
+     * to match the density of a disc.
+     */
+    public static final int SPAWN_VISIBLE = RadialSimulation.SPAWN_VISIBLE;
+
+    private static final float BUCKET_STEP = 0.5f; // px
+    private static final int MAX_BUCKETS = 32;
+
+    private final StarSimulation mSimulation;
     private int mCx;
     private int mCy;
-    private float mRadius;
-    private float mSize;
-    private CircularStar[] mStars;
+    private float[] mResolved;
+    private int mResolvedCount;
     private Paint mPaint;
+    private Paint mPointPaint;
+    private int mRenderMode;
+    private float mBucketStep;
+    private int[] mBucketEnds;
+    private float[] mBatch;
 
     /**
      * Constructor to create a random cluster of stars for the given width and height.
@@ -29,18 +60,53 @@ public class CircularStarfield {
      * @param paint  Paint to draw with.
      */
     public CircularStarfield(int width, int height, int count, float size, @NonNull Paint paint) {
+        this(width, height, count, size, paint, SPAWN_DISC);
+    }
+
+    /**
+     * Constructor to create a random cluster of stars with a given spawn mode.
+     *
+     * @param width     The canvas width.
+     * @param height    The canvas height.
+     * @param count     Number of stars to generate.
+     * @param size      Star size.
+     * @param paint     Paint to draw with.
+     * @param spawnMode Either {@link #SPAWN_DISC} or {@link #SPAWN_VISIBLE}.
+     */
+    public CircularStarfield(int width, int height, int count, float size, @NonNull Paint paint, int spawnMode) {
+        this(width, height, count, size, paint, spawnMode, StarRandom.createSeed());
+    }
+
+    /**
+     * Constructor to create a reproducible cluster of stars with a given spawn mode.
+     *
+     * @param width     The canvas width.
+     * @param height    The canvas height.
+     * @param count     Number of stars to generate.
+     * @param size      Star size.
+     * @param paint     Paint to draw with.
+     * @param spawnMode Either {@link #SPAWN_DISC} or {@link #SPAWN_VISIBLE}.
+     * @param seed      Random seed.
+     */
+    public CircularStarfield(int width, int height, int count, float size, @NonNull Paint paint, int spawnMode,
+                             long seed) {
+        mSimulation = new RadialSimulation(width, height, count, size, spawnMode, seed);
         mCx = width / 2;
         mCy = height / 2;
-        mRadius = getOuterRadius(width, height);
-        mSize = size;
-
-        mStars = new CircularStar[count];
+        mResolved = new float[mSimulation.getCapacity() * 3];
+        mPaint = paint;
 
-        for (int i = 0; i < mStars.length; i++) {
-            mStars[i] = generate(new CircularStar());
-        }
+        setBuckets(size);
+    }
 
-        mPaint = paint;
+    /**
+     * Get the simulation behind the starfield.
+     *
+     * @return Star simulation.
+     */
+    @NonNull
+    public StarSimulation getSimulation() {
+        return mSimulation;
     }
 
     /**
@@ -50,57 +116,411 @@ public class CircularStarfield {
      * @param speed  Rate of speed.
      */
     public void draw(@NonNull Canvas canvas, float speed) {
-        for (int i = 0; i < mStars.length; i++) {
-            CircularStar star = mStars[i];
-            PointF point = getXYPoint(star.point, star.theta);
+        render(canvas);
+        update(speed);
+    }
+
+    /**
+     * Advance the simulation by real elapsed time in fixed steps, rendering in between them.
+     *
+     * @param elapsed Elapsed time in milliseconds.
+     * @param speed   Rate of speed per step.
+     * @see RadialSimulation#simulate(float, float)
+     */
+    public void simulate(float elapsed, float speed) {
+        mSimulation.simulate(elapsed, speed);
+    }
+
+    /**
+     * Advance the stars forward radially by a single step without drawing.
+     *
+     * @param speed Rate of speed.
+     */
+    public void update(float speed) {
+        mSimulation.update(speed);
+    }
 
-            canvas.drawCircle(point.x + mCx, point.y + mCy, star.radius, mPaint);
+    /**
+     * Draw the stars at their interpolated position on the given canvas.
+     *
+     * @param canvas Canvas to draw on.
+     */
+    public void render(@NonNull Canvas canvas) {
+        if (mRenderMode == RENDER_POINTS) {
+            renderPoints(canvas);
+            return;
+        }
+
+        int visible = resolve();
+        float[] stars = mResolved;
+
+        for (int i = 0; i < visible * 3; i += 3) {
+            canvas.drawCircle(stars[i] + mCx, stars[i + 1] + mCy, stars[i + 2], mPaint);
+        }
+    }
 
-            star.point += star.delta * speed;
-            star.radius = star.delta * star.point / mRadius * mSize;
+    /**
+     * Draw the stars at their interpolated position with the given software rasterizer.
+     *
+     * @param rasterizer Rasterizer to draw with.
+     */
+    public void render(@NonNull PixelRasterizer rasterizer) {
+        int visible = resolve();
+        float[] stars = mResolved;
+
+        rasterizer.setColor(mPaint.getColor());
 
-            if (star.point < 0 || star.point > mRadius) {
-                generate(star);
+        for (int i = 0; i < visible * 3; i += 3) {
+            rasterizer.drawStar(stars[i] + mCx, stars[i + 1] + mCy, stars[i + 2]);
+        }
+    }
+
+    /**
+     * Mark the tiles covered by the stars of the last render, without resolving them again.
+     *
+     * @param tiles Tiles to mark.
+     * @param scale Scale from drawing coordinates to the buffer.
+     */
+    void markTiles(@NonNull TrailTiles tiles, float scale) {
+        int visible = mResolvedCount;
+        float[] stars = mResolved;
+
+        // Points are drawn up to half a bucket larger
+        float pad = mRenderMode == RENDER_POINTS ? mBucketStep / 2 : 0;
+
+        for (int i = 0; i < visible * 3; i += 3) {
+            float x = stars[i] + mCx;
+            float y = stars[i + 1] + mCy;
+            float radius = stars[i + 2] + pad;
+
+            tiles.mark((x - radius) * scale, (y - radius) * scale, (x + radius) * scale, (y + radius) * scale);
+        }
+    }
+
+    /**
+     * Batched version of render. Stars are sorted into buckets by quantized radius and each bucket
+     * is issued as a single call to draw round points.
+     *
+     * @param canvas Canvas to draw on.
+     */
+    private void renderPoints(@NonNull Canvas canvas) {
+        int visible = resolve();
+        float[] stars = mResolved;
+        float[] batch = mBatch;
+        int[] ends = mBucketEnds;
+
+        // Count the visible stars in each bucket
+        Arrays.fill(ends, 0);
+
+        for (int i = 0; i < visible * 3; i += 3) {
+            ends[getBucket(stars[i + 2])]++;
+        }
+
+        // Then turn the counts into offsets
+        int offset = 0;
+
+        for (int b = 0; b < ends.length; b++) {
+            int count = ends[b];
+            ends[b] = offset;
+            offset += count;
+        }
+
+        for (int i = 0; i < visible * 3; i += 3) {
+            int slot = ends[getBucket(stars[i + 2])]++ * 2;
+
+            batch[slot] = stars[i] + mCx;
+            batch[slot + 1] = stars[i + 1] + mCy;
+        }
+
+        mPointPaint.set(mPaint);
+        mPointPaint.setStrokeCap(Paint.Cap.ROUND);
+
+        // Smallest bucket rounds down to nothing
+        for (int b = 1; b < ends.length; b++) {
+            int start = ends[b - 1];
+            int count = ends[b] - start;
+
+            if (count > 0) {
+                mPointPaint.setStrokeWidth(2 * b * mBucketStep);
+                canvas.drawPoints(batch, start * 2, count * 2, mPointPaint);
             }
         }
     }
 
     /**
-     * (Re)initialize an individual star with a random starting point and radius.
+     * Resolve the visible stars into the reusable buffer, growing it along with the simulation.
      *
-     * @param star The given star.
-     * @return A star reborn.
+     * @return Number of visible stars.
      */
-    private CircularStar generate(@NonNull CircularStar star) {
-        star.point = (float) (mRadius * Math.sqrt(Math.random()));
-        star.theta = (float) (2 * Math.PI * Math.random());
-        star.delta = (float) Math.sqrt(Math.random());
-        star.radius = star.delta * star.point / mRadius * mSize;
+    private int resolve() {
+        int capacity = mSimulation.getCapacity();
+
+        if (mResolved.length < capacity * 3) {
+            mResolved = new float[capacity * 3];
+        }
+
+        if (mBatch != null && mBatch.length < capacity * 2) {
+            mBatch = new float[capacity * 2];
+        }
 
-        return star;
+        mResolvedCount = mSimulation.resolve(mResolved);
+        return mResolvedCount;
     }
 
     /**
-     * Utility method to find the outer radius of a given rectangle.
+     * Find the bucket of similarly sized stars for a given radius.
      *
-     * @param width  The width.
-     * @param height The height
-     * @return Outer radius.
+     * @param radius Star radius.
+     * @return Bucket index.
      */
-    protected static float getOuterRadius(int width, int height) {
-        // r = sqrt(w^2 + h^2) / 2
-        return (float) (Math.sqrt(width * width + height * height) / 2);
+    private int getBucket(float radius) {
+        int bucket = (int) (radius / mBucketStep + 0.5f);
+        return bucket < 0 ? 0 : Math.min(bucket, mBucketEnds.length - 1);
+    }
+
+    /**
+     * Resize the starfield for a new width and height. Stars keep their place relative to the outer
+     * radius instead of being generated again.
+     *
+     * @param width  The canvas width.
+     * @param height The canvas height.
+     */
+    public void resize(int width, int height) {
+        mCx = width / 2;
+        mCy = height / 2;
+
+        mSimulation.resize(width, height);
     }
 
     /**
-     * Utility method to find the coordinates of a point along an angle.
+     * Change the number of stars without generating the whole starfield again.
      *
-     * @param point Point on the angle.
-     * @param angle Angle in radians.
-     * @return The X and Y axis.
+     * @param count Number of stars.
+     */
+    public void setCount(int count) {
+        mSimulation.setCount(count);
+    }
+
+    /**
+     * Drop the spare capacity kept from a larger star count, along with the matching draw buffers.
      */
-    protected static PointF getXYPoint(float point, float angle) {
-        // x = r * cos(t), y = r * sin(t)
-        return new PointF((float) (point * Math.cos(angle)), (float) (point * Math.sin(angle)));
+    public void trimToSize() {
+        mSimulation.trimToSize();
+
+        int capacity = mSimulation.getCapacity();
+        mResolved = new float[capacity * 3];
+        mResolvedCount = 0;
+
+        if (mBatch != null) {
+            mBatch = new float[capacity * 2];
+        }
+    }
+
+    /**
+     * Change the star size without generating the starfield again.
+     *
+     * @param size Star size.
+     */
+    public void setSize(float size) {
+        if (size == mSimulation.getSize()) return;
+
+        mSimulation.setSize(size);
+
+        setBuckets(size);
+    }
+
+    /**
+     * Get the star size.
+     *
+     * @return Star size.
+     */
+    public float getSize() {
+        return mSimulation.getSize();
+    }
+
+    /**
+     * Quantize star radii for batching.
+     *
+     * @param size Star size.
+     */
+    private void setBuckets(float size) {
+        int buckets = Math.max(2, Math.min(MAX_BUCKETS, (int) Math.ceil(size / BUCKET_STEP) + 1));
+
+        mBucketStep = size / (buckets - 1);
+        mBucketEnds = new int[buckets];
+    }
+
+    /**
+     * Get the number of stars in the starfield.
+     *
+     * @return Number of stars.
+     */
+    public int getCount() {
+        return mSimulation.getCount();
+    }
+
+    /**
+     * Get the number of stars respawned by updates so far.
+     *
+     * @return Running respawn count.
+     */
+    public long getRespawns() {
+        return mSimulation.getRespawns();
+    }
+
+    /**
+     * Pack the stars into quantized values that don't depend on the canvas size.
+     *
+     * @param maxCount Most stars to save.
+     * @return Packed star state.
+     * @see RadialSimulation#saveState(int)
+     */
+    @NonNull
+    public char[] saveState(int maxCount) {
+        return mSimulation.saveState(maxCount);
+    }
+
+    /**
+     * Restore stars saved by {@link #saveState(int)}, scaled to the current canvas size.
+     *
+     * @param state Packed star state.
+     */
+    public void restoreState(@NonNull char[] state) {
+        mSimulation.restoreState(state);
+    }
+
+    /**
+     * Get the seed the stars are generated from.
+     *
+     * @return Random seed.
+     */
+    public long getSeed() {
+        return mSimulation.getSeed();
+    }
+
+    /**
+     * Set the seed the stars are generated from and generate them again.
+     *
+     * @param seed Random seed.
+     */
+    public void setSeed(long seed) {
+        mSimulation.setSeed(seed);
+    }
+
+    /**
+     * Get where new stars are placed.
+     *
+     * @return Either {@link #SPAWN_DISC} or {@link #SPAWN_VISIBLE}.
+     */
+    public int getSpawnMode() {
+        return mSimulation.getSpawnMode();
+    }
+
+    /**
+     * Get the length of a fixed simulation step.
+     *
+     * @return Step time in milliseconds.
+     */
+    public float getStepTime() {
+        return mSimulation.getStepTime();
+    }
+
+    /**
+     * Set the length of a fixed simulation step.
+     *
+     * @param stepTime Step time in milliseconds.
+     */
+    public void setStepTime(float stepTime) {
+        mSimulation.setStepTime(stepTime);
+    }
+
+    /**
+     * Get the way stars are rendered.
+     *
+     * @return Either {@link #RENDER_CIRCLES} or {@link #RENDER_POINTS}.
+     */
+    public int getRenderMode() {
+        return mRenderMode;
+    }
+
+    /**
+     * Set the way stars are rendered. Points are batched into a few draw calls and are much cheaper
+     * for large starfields, at the cost of quantized star sizes.
+     *
+     * @param renderMode Either {@link #RENDER_CIRCLES} or {@link #RENDER_POINTS}.
+     */
+    public void setRenderMode(int renderMode) {
+        if (renderMode == RENDER_POINTS && mBatch == null) {
+            mBatch = new float[mSimulation.getCapacity() * 2];
+            mPointPaint = new Paint();
+        }
+
+        mRenderMode = renderMode;
+    }
+
+    /**
+     * Check if large starfields are advanced in parallel on the shared worker pool.
+     *
+     * @return True if parallel.
+     */
+    public boolean isParallel() {
+        return mSimulation.isParallel();
+    }
+
+    /**
+     * Set if large starfields are advanced in parallel on the shared worker pool. Only the update is
+     * split up, drawing stays on the calling thread.
+     *
+     * @param parallel True if parallel.
+     */
+    public void setParallel(boolean parallel) {
+        mSimulation.setParallel(parallel);
+    }
+
+    /**
+     * Get the number of stars below which parallel updates are skipped.
+     *
+     * @return Star count threshold.
+     */
+    public int getParallelThreshold() {
+        return mSimulation.getParallelThreshold();
+    }
+
+    /**
+     * Set the number of stars below which parallel updates are skipped.
+     *
+     * @param parallelThreshold Star count threshold.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        mSimulation.setParallelThreshold(parallelThreshold);
+    }
+
+    /**
+     * Check if reborn stars take their direction from a sine table instead of the trig functions.
+     *
+     * @return True if using the lookup table.
+     */
+    public boolean isLookupTable() {
+        return mSimulation.isLookupTable();
+    }
+
+    /**
+     * Set if reborn stars take their direction from a sine table instead of the trig functions.
+     *
+     * @param lookupTable True to use the lookup table.
+     */
+    public void setLookupTable(boolean lookupTable) {
+        mSimulation.setLookupTable(lookupTable);
+    }
+
+    /**
+     * Utility method to find the outer radius of a given rectangle.
+     *
+     * @param width  The width.
+     * @param height The height
+     * @return Outer radius.
+     */
+    protected static float getOuterRadius(int width, int height) {
+        return RadialSimulation.getOuterRadius(width, height);
     }
-}
\ No newline at end of file
+}
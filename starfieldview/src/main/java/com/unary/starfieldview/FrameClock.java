@@ -0,0 +1,116 @@
+package com.unary.starfieldview;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Frame pacing shared by the starfield widgets. Time updates are added up until a frame is due, and
+ * each frame is scaled by the real time since the last one. Only used on the animator thread.
+ */
+final class FrameClock {
+
+    /**
+     * Longest time a warm-up may take.
+     */
+    static final long MAX_WARM_UP_TIME = 100; // ms
+
+    private static final float SPEED_TIME = 20; // ms
+    private static final long MAX_FRAME_TIME = 100; // ms
+    private static final float WARM_UP_FRAME_TIME = 16; // ms
+    private static final int MAX_WARM_UP_FRAMES = 240;
+
+    private long mDeltaTime;
+    private long mFrameTime;
+
+    /**
+     * Interface for drawing a single frame of the warm-up.
+     */
+    interface Frame {
+
+        /**
+         * Advance and draw the stars over the faded trails.
+         *
+         * @param elapsed Time to advance by in milliseconds.
+         * @param keep    Fraction of the trails to keep.
+         */
+        void draw(float elapsed, double keep);
+    }
+
+    /**
+     * Add the time since the last update.
+     *
+     * @param deltaTime Time since the last update.
+     */
+    void addTime(long deltaTime) {
+        mDeltaTime += deltaTime;
+        mFrameTime += deltaTime;
+    }
+
+    /**
+     * Check if enough time has passed for another frame.
+     *
+     * @param frameInterval Minimum time between frames.
+     * @return True if a frame is due.
+     */
+    boolean isFrameDue(long frameInterval) {
+        return mDeltaTime >= frameInterval;
+    }
+
+    /**
+     * Start a frame that is due. The remainder is carried over to hold the average rate.
+     *
+     * @param frameInterval Minimum time between frames.
+     * @return Time since the last frame, capped at {@value #MAX_FRAME_TIME} ms.
+     */
+    float startFrame(long frameInterval) {
+        mDeltaTime = Math.min(mDeltaTime - frameInterval, frameInterval);
+
+        float elapsed = Math.min(mFrameTime, MAX_FRAME_TIME);
+        mFrameTime = 0;
+
+        return elapsed;
+    }
+
+    /**
+     * Utility method to find how much of the trails to keep after some time has passed.
+     *
+     * @param alpha   Star trail alpha.
+     * @param elapsed Time passed in milliseconds.
+     * @return Fraction of the trails to keep.
+     */
+    static double getKeep(float alpha, float elapsed) {
+        return Math.pow(1 - alpha, elapsed / SPEED_TIME);
+    }
+
+    /**
+     * Utility method to find the minimum time between frames for a target frame rate.
+     *
+     * @param frameRate Frames per second or zero to match the display.
+     * @return Frame interval in milliseconds.
+     */
+    static long getFrameInterval(int frameRate) {
+        return frameRate > 0 ? 1000 / frameRate : 0;
+    }
+
+    /**
+     * Run a new starfield through enough frames for the trails to fill in. It stops early after
+     * {@value #MAX_WARM_UP_TIME} ms so the first frame is never held back for long.
+     *
+     * @param frameInterval Minimum time between frames, or zero for the display rate.
+     * @param alpha         Star trail alpha.
+     * @param frame         Draws each frame.
+     */
+    static void warmUp(long frameInterval, float alpha, @NonNull Frame frame) {
+        float elapsed = frameInterval > 0 ? frameInterval : WARM_UP_FRAME_TIME;
+        double keep = getKeep(alpha, elapsed);
+
+        // Until older trails fade below one level
+        int frames = keep > 0 && keep < 1 ? (int) Math.ceil(Math.log(1 / 255d) / Math.log(keep)) : 1;
+        frames = Math.min(frames, MAX_WARM_UP_FRAMES);
+
+        long deadline = System.nanoTime() + MAX_WARM_UP_TIME * 1000000;
+
+        for (int i = 0; i < frames && System.nanoTime() < deadline; i++) {
+            frame.draw(elapsed, keep);
+        }
+    }
+}
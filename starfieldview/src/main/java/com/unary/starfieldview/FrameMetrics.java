@@ -0,0 +1,252 @@
+package com.unary.starfieldview;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Opt-in counters for what each frame costs. Times are kept in histograms with buckets that double
+ * in width, so recording a frame is a few increments and never allocates. Recording happens on the
+ * animator thread, while snapshots may be taken from any thread.
+ */
+public class FrameMetrics {
+
+    /**
+     * Number of histogram buckets. Bucket 0 counts times under {@value #BUCKET_BASE} us, and each
+     * bucket after that doubles the upper bound. The last bucket counts everything longer.
+     */
+    public static final int HISTOGRAM_BUCKETS = 16;
+
+    /**
+     * Upper bound of the first histogram bucket in microseconds.
+     */
+    public static final int BUCKET_BASE = 64;
+
+    private static final long REPORT_INTERVAL = 1000; // ms
+
+    private final long[] mSimulationHistogram = new long[HISTOGRAM_BUCKETS];
+    private final long[] mRasterHistogram = new long[HISTOGRAM_BUCKETS];
+    private long mFramesRendered;
+    private long mFramesSkipped;
+    private long mRespawns;
+    private long mWindowRespawns;
+    private long mWindowTime;
+    private float mRespawnRate;
+    private long mBufferBytes;
+    private long mFirstFrameTime = -1;
+
+    /**
+     * Called on the animator thread for every rendered frame.
+     *
+     * @param simulationTime Time spent simulating in nanoseconds.
+     * @param rasterTime     Time spent rendering in nanoseconds.
+     */
+    public synchronized void recordFrame(long simulationTime, long rasterTime) {
+        mSimulationHistogram[getBucket(simulationTime)]++;
+        mRasterHistogram[getBucket(rasterTime)]++;
+        mFramesRendered++;
+    }
+
+    /**
+     * Called on the animator thread for frames that were due but could not be rendered.
+     *
+     * @param frames Frames skipped.
+     */
+    public synchronized void recordSkipped(long frames) {
+        mFramesSkipped += frames;
+    }
+
+    /**
+     * Called on the animator thread with the elapsed time and the running respawn count. The rate
+     * is worked out once per reporting window.
+     *
+     * @param elapsed  Elapsed time in milliseconds.
+     * @param respawns Stars respawned so far.
+     * @return True when a reporting window has just closed.
+     */
+    public synchronized boolean recordTime(long elapsed, long respawns) {
+        mRespawns = respawns;
+        mWindowTime += elapsed;
+
+        if (mWindowTime < REPORT_INTERVAL) return false;
+
+        // A new starfield counts from zero again
+        long windowRespawns = respawns >= mWindowRespawns ? respawns - mWindowRespawns : respawns;
+
+        mRespawnRate = windowRespawns * 1000f / mWindowTime;
+        mWindowRespawns = respawns;
+        mWindowTime = 0;
+
+        return true;
+    }
+
+    /**
+     * Set the memory held by frame buffers.
+     *
+     * @param bufferBytes Buffer memory in bytes.
+     */
+    public synchronized void setBufferBytes(long bufferBytes) {
+        mBufferBytes = bufferBytes;
+    }
+
+    /**
+     * Set the time it took to show the first frame of the starfield.
+     *
+     * @param firstFrameTime Time in milliseconds, or -1 if not shown yet.
+     */
+    public synchronized void setFirstFrameTime(long firstFrameTime) {
+        mFirstFrameTime = firstFrameTime;
+    }
+
+    /**
+     * Clear all of the counters.
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            mSimulationHistogram[i] = 0;
+            mRasterHistogram[i] = 0;
+        }
+
+        mFramesRendered = 0;
+        mFramesSkipped = 0;
+        mWindowRespawns = mRespawns;
+        mWindowTime = 0;
+        mRespawnRate = 0;
+    }
+
+    /**
+     * Take a consistent copy of the counters.
+     *
+     * @return Metrics snapshot.
+     */
+    @NonNull
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(mSimulationHistogram.clone(), mRasterHistogram.clone(), mFramesRendered,
+                mFramesSkipped, mRespawnRate, mBufferBytes, mFirstFrameTime);
+    }
+
+    /**
+     * Utility method to find the histogram bucket for a time.
+     *
+     * @param time Time in nanoseconds.
+     * @return Bucket index.
+     */
+    private static int getBucket(long time) {
+        long units = time / (BUCKET_BASE * 1000L);
+        int bucket = 64 - Long.numberOfLeadingZeros(units);
+
+        return Math.min(bucket, HISTOGRAM_BUCKETS - 1);
+    }
+
+    /**
+     * Interface definition for a callback with fresh metrics about once a second.
+     */
+    public interface OnMetricsListener {
+
+        /**
+         * Called on the UI thread with a snapshot of the metrics.
+         *
+         * @param snapshot Metrics snapshot.
+         */
+        void onMetrics(@NonNull Snapshot snapshot);
+    }
+
+    /**
+     * Immutable copy of the metrics at one point in time.
+     */
+    public static class Snapshot {
+
+        private final long[] mSimulationHistogram;
+        private final long[] mRasterHistogram;
+        private final long mFramesRendered;
+        private final long mFramesSkipped;
+        private final float mRespawnRate;
+        private final long mBufferBytes;
+        private final long mFirstFrameTime;
+
+        /**
+         * Constructor for a snapshot of the given values.
+         *
+         * @param simulationHistogram Simulation times.
+         * @param rasterHistogram     Render times.
+         * @param framesRendered      Frames rendered.
+         * @param framesSkipped       Frames skipped.
+         * @param respawnRate         Respawns per second.
+         * @param bufferBytes         Buffer memory in bytes.
+         * @param firstFrameTime      Time to the first frame in milliseconds.
+         */
+        private Snapshot(long[] simulationHistogram, long[] rasterHistogram, long framesRendered,
+                         long framesSkipped, float respawnRate, long bufferBytes, long firstFrameTime) {
+            mSimulationHistogram = simulationHistogram;
+            mRasterHistogram = rasterHistogram;
+            mFramesRendered = framesRendered;
+            mFramesSkipped = framesSkipped;
+            mRespawnRate = respawnRate;
+            mBufferBytes = bufferBytes;
+            mFirstFrameTime = firstFrameTime;
+        }
+
+        /**
+         * Get the histogram of time spent simulating each frame.
+         *
+         * @return Frame counts per bucket.
+         */
+        @NonNull
+        public long[] getSimulationHistogram() {
+            return mSimulationHistogram.clone();
+        }
+
+        /**
+         * Get the histogram of time spent rendering each frame.
+         *
+         * @return Frame counts per bucket.
+         */
+        @NonNull
+        public long[] getRasterHistogram() {
+            return mRasterHistogram.clone();
+        }
+
+        /**
+         * Get the number of frames rendered.
+         *
+         * @return Frames rendered.
+         */
+        public long getFramesRendered() {
+            return mFramesRendered;
+        }
+
+        /**
+         * Get the number of frames that were due but could not be rendered.
+         *
+         * @return Frames skipped.
+         */
+        public long getFramesSkipped() {
+            return mFramesSkipped;
+        }
+
+        /**
+         * Get how many stars were respawned per second over the last reporting window.
+         *
+         * @return Respawns per second.
+         */
+        public float getRespawnRate() {
+            return mRespawnRate;
+        }
+
+        /**
+         * Get the memory held by frame buffers.
+         *
+         * @return Buffer memory in bytes.
+         */
+        public long getBufferBytes() {
+            return mBufferBytes;
+        }
+
+        /**
+         * Get the time it took to show the first frame of the starfield.
+         *
+         * @return Time in milliseconds, or -1 if not shown yet.
+         */
+        public long getFirstFrameTime() {
+            return mFirstFrameTime;
+        }
+    }
+}
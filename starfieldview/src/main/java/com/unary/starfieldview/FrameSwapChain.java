@@ -0,0 +1,198 @@
+package com.unary.starfieldview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of preallocated frame bitmaps handed between the animator thread and the UI thread. The
+ * animator thread renders into a back buffer and publishes it atomically, so there is no per-frame
+ * allocation or copy. Double buffering uses less memory but skips a frame until the UI thread has
+ * drawn the last one. Triple buffering never waits.
+ */
+public class FrameSwapChain {
+
+    /**
+     * Two buffers. The producer waits for each frame to be drawn.
+     */
+    public static final int DOUBLE_BUFFER = 2;
+
+    /**
+     * Three buffers. The producer never waits.
+     */
+    public static final int TRIPLE_BUFFER = 3;
+
+    private static final int INDEX_MASK = 0x3;
+    private static final int FRESH = 0x4;
+
+    private final Bitmap[] mBitmaps;
+    private final Canvas[] mCanvases;
+    private final AtomicInteger mShared;
+    private int mBack;
+    private int mPrevious;
+    private int mFront;
+    private int mAcquired;
+    private volatile boolean mPosted;
+
+    /**
+     * Constructor to allocate all of the frame buffers up front.
+     *
+     * @param width     The buffer width.
+     * @param height    The buffer height.
+     * @param buffering Either {@link #DOUBLE_BUFFER} or {@link #TRIPLE_BUFFER}.
+     */
+    public FrameSwapChain(int width, int height, int buffering) {
+        this(width, height, buffering, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Constructor to allocate all of the frame buffers up front with a given pixel format.
+     *
+     * @param width     The buffer width.
+     * @param height    The buffer height.
+     * @param buffering Either {@link #DOUBLE_BUFFER} or {@link #TRIPLE_BUFFER}.
+     * @param config    Bitmap configuration of the buffers.
+     */
+    public FrameSwapChain(int width, int height, int buffering, @NonNull Bitmap.Config config) {
+        int count = buffering == DOUBLE_BUFFER ? DOUBLE_BUFFER : TRIPLE_BUFFER;
+
+        mBitmaps = new Bitmap[count];
+        mCanvases = new Canvas[count];
+
+        for (int i = 0; i < count; i++) {
+            mBitmaps[i] = Bitmap.createBitmap(width, height, config);
+            mCanvases[i] = new Canvas(mBitmaps[i]);
+        }
+
+        // Shared slot is the front buffer (double) or the ready buffer (triple)
+        mBack = 0;
+        mPrevious = 1;
+        mFront = count - 1;
+        mShared = new AtomicInteger(1);
+    }
+
+    /**
+     * Get the number of buffers in the chain.
+     *
+     * @return Two or three buffers.
+     */
+    public int getBuffering() {
+        return mBitmaps.length;
+    }
+
+    /**
+     * Get the memory held by all of the buffers in the chain.
+     *
+     * @return Buffer memory in bytes.
+     */
+    public long getByteCount() {
+        long bytes = 0;
+
+        for (Bitmap bitmap : mBitmaps) {
+            bytes += bitmap.getByteCount();
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Called from the animator thread to get the canvas of the back buffer. With double buffering
+     * this returns null while the last published frame has not been drawn yet.
+     *
+     * @return Back buffer canvas or null to skip the frame.
+     */
+    @Nullable
+    public Canvas lockCanvas() {
+        if (mBitmaps.length == DOUBLE_BUFFER) {
+            int shared = mShared.get();
+
+            if ((shared & FRESH) != 0) return null;
+
+            mPrevious = shared & INDEX_MASK;
+            mBack = 1 - mPrevious;
+        }
+
+        return mCanvases[mBack];
+    }
+
+    /**
+     * Called from the animator thread to get the bitmap of the back buffer. Only valid after a
+     * successful call to {@link #lockCanvas()}.
+     *
+     * @return Back buffer.
+     */
+    @NonNull
+    public Bitmap getBackBitmap() {
+        return mBitmaps[mBack];
+    }
+
+    /**
+     * Called from the animator thread to get the most recently published frame. It is only ever
+     * read while the back buffer is being rendered, which makes it safe to fade from.
+     *
+     * @return Previous frame.
+     */
+    @NonNull
+    public Bitmap getPreviousBitmap() {
+        return mBitmaps[mPrevious];
+    }
+
+    /**
+     * Called from the animator thread to publish the back buffer after rendering.
+     */
+    public void unlockCanvasAndPost() {
+        if (mBitmaps.length == DOUBLE_BUFFER) {
+            mShared.set(mBack | FRESH);
+        } else {
+            mPrevious = mBack;
+            mBack = mShared.getAndSet(mBack | FRESH) & INDEX_MASK;
+        }
+
+        if (!mPosted) {
+            mPosted = true;
+        }
+    }
+
+    /**
+     * Check if any frame has been published yet. Until then the front buffer is blank.
+     *
+     * @return True once a frame was posted.
+     */
+    public boolean hasFrame() {
+        return mPosted;
+    }
+
+    /**
+     * Called from the UI thread to get the newest frame to draw. Follow with {@link #releaseFront()}
+     * once drawing is done.
+     *
+     * @return Front buffer.
+     */
+    @NonNull
+    public Bitmap acquireFront() {
+        if (mBitmaps.length == DOUBLE_BUFFER) {
+            mAcquired = mShared.get();
+            return mBitmaps[mAcquired & INDEX_MASK];
+        }
+
+        if ((mShared.get() & FRESH) != 0) {
+            mFront = mShared.getAndSet(mFront) & INDEX_MASK;
+        }
+
+        return mBitmaps[mFront];
+    }
+
+    /**
+     * Called from the UI thread after the front buffer has been drawn. This lets a double buffered
+     * producer reuse the other buffer.
+     */
+    public void releaseFront() {
+        if (mBitmaps.length == DOUBLE_BUFFER) {
+            mShared.compareAndSet(mAcquired, mAcquired & INDEX_MASK);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.unary.starfieldview;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+
+/**
+ * Software rasterizer that draws stars straight into an integer frame buffer. Each star is stamped
+ * from a precomputed antialiased kernel for its quantized radius, and the whole buffer is uploaded
+ * to a bitmap once per frame. This avoids issuing a draw call per star.
+ *
+ * <p>The buffer is split into tiles that remember if they hold any lit pixels. Fading the trails
+ * only visits lit tiles, so its cost follows the stars rather than the screen area.</p>
+ */
+public class PixelRasterizer {
+
+    private static final float STAMP_STEP = 0.5f; // px
+    private static final int MAX_STAMPS = 32;
+    private static final int SUPERSAMPLE = 4;
+    private static final int TILE_SHIFT = 4; // 16 px
+    private static final int TILE_SIZE = 1 << TILE_SHIFT;
+
+    private final int mWidth;
+    private final int mHeight;
+    private final int[] mPixels;
+    private int[][] mStamps;
+    private int[] mStampSides;
+    private float mStampStep;
+    private final float mScale;
+    private final int mTilesX;
+    private final boolean[] mTileLit;
+    private final int[] mFadeTable;
+    private int mFadeKeep;
+    private int mRgb;
+    private int mAlpha;
+
+    /**
+     * Constructor to allocate the frame buffer and build the stamp kernels.
+     *
+     * @param width  The buffer width.
+     * @param height The buffer height.
+     * @param size   Largest star radius.
+     */
+    public PixelRasterizer(int width, int height, float size) {
+        this(width, height, size, 1);
+    }
+
+    /**
+     * Constructor for a buffer that is scaled from the coordinates it is drawn with.
+     *
+     * @param width  The buffer width.
+     * @param height The buffer height.
+     * @param size   Largest star radius, before scaling.
+     * @param scale  Scale from drawing coordinates to the buffer.
+     */
+    public PixelRasterizer(int width, int height, float size, float scale) {
+        mWidth = width;
+        mHeight = height;
+        mPixels = new int[width * height];
+        mScale = scale;
+
+        mTilesX = (width + TILE_SIZE - 1) >> TILE_SHIFT;
+        mTileLit = new boolean[mTilesX * ((height + TILE_SIZE - 1) >> TILE_SHIFT)];
+        mFadeTable = new int[256];
+        mFadeKeep = -1;
+
+        setSize(size);
+    }
+
+    /**
+     * Build the stamp kernels again for a new largest star radius.
+     *
+     * @param size Largest star radius, before scaling.
+     */
+    public void setSize(float size) {
+        size *= mScale;
+
+        int stamps = Math.max(2, Math.min(MAX_STAMPS, (int) Math.ceil(size / STAMP_STEP) + 1));
+
+        mStampStep = size / (stamps - 1);
+        mStamps = new int[stamps][];
+        mStampSides = new int[stamps];
+
+        for (int i = 0; i < stamps; i++) {
+            mStampSides[i] = 2 * (int) Math.ceil(i * mStampStep + 0.5f) + 1;
+            mStamps[i] = createStamp(i * mStampStep, mStampSides[i]);
+        }
+    }
+
+    /**
+     * Get the buffer width.
+     *
+     * @return Width in pixels.
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * Get the buffer height.
+     *
+     * @return Height in pixels.
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Get the memory held by the frame buffer.
+     *
+     * @return Buffer memory in bytes.
+     */
+    public long getByteCount() {
+        return mPixels.length * 4L;
+    }
+
+    /**
+     * Set the color used for stars drawn after this call.
+     *
+     * @param color Star color.
+     */
+    public void setColor(@ColorInt int color) {
+        mRgb = color & 0xFFFFFF;
+        mAlpha = color >>> 24;
+    }
+
+    /**
+     * Fade the lit pixels of the buffer towards transparent. Tiles that fade out completely are
+     * skipped until a star is drawn on them again.
+     *
+     * @param keep Fraction of alpha to keep, from 0 to 256.
+     */
+    public void fade(int keep) {
+        int[] pixels = mPixels;
+        int[] table = mFadeTable;
+
+        // Rounding down makes sure every trail ends
+        if (keep != mFadeKeep) {
+            for (int alpha = 0; alpha < table.length; alpha++) {
+                table[alpha] = (alpha * keep >> 8) << 24;
+            }
+
+            mFadeKeep = keep;
+        }
+
+        for (int tile = 0; tile < mTileLit.length; tile++) {
+            if (!mTileLit[tile]) continue;
+
+            int left = (tile % mTilesX) << TILE_SHIFT;
+            int top = (tile / mTilesX) << TILE_SHIFT;
+            int right = Math.min(mWidth, left + TILE_SIZE);
+            int bottom = Math.min(mHeight, top + TILE_SIZE);
+            boolean lit = false;
+
+            for (int y = top; y < bottom; y++) {
+                int row = y * mWidth;
+
+                for (int i = row + left; i < row + right; i++) {
+                    int pixel = pixels[i];
+
+                    if (pixel == 0) continue;
+
+                    int alpha = table[pixel >>> 24];
+
+                    if (alpha == 0) {
+                        pixels[i] = 0;
+                    } else {
+                        pixels[i] = alpha | (pixel & 0xFFFFFF);
+                        lit = true;
+                    }
+                }
+            }
+
+            mTileLit[tile] = lit;
+        }
+    }
+
+    /**
+     * Stamp a star onto the buffer. Stars partially or completely outside are clipped.
+     *
+     * @param x      Center X.
+     * @param y      Center Y.
+     * @param radius Star radius.
+     */
+    public void drawStar(float x, float y, float radius) {
+        int index = (int) (radius * mScale / mStampStep + 0.5f);
+
+        // Smallest stamp rounds down to nothing
+        if (index <= 0) return;
+        if (index >= mStamps.length) index = mStamps.length - 1;
+
+        int[] stamp = mStamps[index];
+        int side = mStampSides[index];
+        int left = (int) Math.floor(x * mScale) - side / 2;
+        int top = (int) Math.floor(y * mScale) - side / 2;
+        int startX = Math.max(0, left);
+        int startY = Math.max(0, top);
+        int endX = Math.min(mWidth, left + side);
+        int endY = Math.min(mHeight, top + side);
+
+        if (startX >= endX || startY >= endY) return;
+
+        // Flag the tiles touched for fading
+        for (int ty = startY >> TILE_SHIFT; ty <= (endY - 1) >> TILE_SHIFT; ty++) {
+            for (int tx = startX >> TILE_SHIFT; tx <= (endX - 1) >> TILE_SHIFT; tx++) {
+                mTileLit[ty * mTilesX + tx] = true;
+            }
+        }
+
+        for (int py = startY; py < endY; py++) {
+            int row = py * mWidth;
+            int stampRow = (py - top) * side - left;
+
+            for (int px = startX; px < endX; px++) {
+                int coverage = stamp[stampRow + px];
+
+                if (coverage == 0) continue;
+
+                // Source over with a single color only needs alpha
+                int src = coverage * mAlpha / 255;
+                int dst = mPixels[row + px] >>> 24;
+                int alpha = dst + src - (dst * src + 127) / 255;
+
+                mPixels[row + px] = alpha << 24 | mRgb;
+            }
+        }
+    }
+
+    /**
+     * Copy the buffer into a bitmap of the same size.
+     *
+     * @param bitmap Bitmap to upload to.
+     */
+    public void upload(@NonNull Bitmap bitmap) {
+        bitmap.setPixels(mPixels, 0, mWidth, 0, 0, mWidth, mHeight);
+    }
+
+    /**
+     * Utility method to build an antialiased coverage kernel for a circle centered on the middle
+     * pixel. Coverage is found by supersampling each pixel.
+     *
+     * @param radius Circle radius.
+     * @param side   Kernel width and height.
+     * @return Coverage from 0 to 255 in row order.
+     */
+    private static int[] createStamp(float radius, int side) {
+        int[] stamp = new int[side * side];
+        int half = side / 2;
+        int samples = SUPERSAMPLE * SUPERSAMPLE;
+
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                int inside = 0;
+
+                for (int s = 0; s < samples; s++) {
+                    float dx = x - half + ((s % SUPERSAMPLE) + 0.5f) / SUPERSAMPLE - 0.5f;
+                    float dy = y - half + ((s / SUPERSAMPLE) + 0.5f) / SUPERSAMPLE - 0.5f;
+
+                    if (dx * dx + dy * dy <= radius * radius) {
+                        inside++;
+                    }
+                }
+
+                stamp[y * side + x] = inside * 255 / samples;
+            }
+        }
+
+        return stamp;
+    }
+}
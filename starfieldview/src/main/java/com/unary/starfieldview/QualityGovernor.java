@@ -0,0 +1,128 @@
+package com.unary.starfieldview;
+
+/**
+ * Adaptive quality control that holds the cost of a frame within a budget. Frame costs are smoothed
+ * and compared against the budget, and the quality level steps down when they run over for a
+ * while. It only steps back up after a much longer stretch well under budget, so it doesn't flip
+ * between two levels.
+ */
+public class QualityGovernor {
+
+    /**
+     * Lowest quality level.
+     */
+    public static final int MAX_LEVEL = 4;
+
+    private static final float[] STAR_SHARES = {1, 0.75f, 0.5f, 0.35f, 0.25f};
+    private static final float SMOOTHING = 0.1f;
+    private static final float RECOVER_SHARE = 0.6f;
+    private static final int DEGRADE_FRAMES = 10;
+    private static final int RECOVER_FRAMES = 120;
+
+    private long mBudget;
+    private float mAverage;
+    private int mLevel;
+    private int mOverFrames;
+    private int mUnderFrames;
+
+    /**
+     * Constructor for a governor with a frame budget.
+     *
+     * @param budget Frame budget in milliseconds.
+     */
+    public QualityGovernor(float budget) {
+        setBudget(budget);
+    }
+
+    /**
+     * Called after each frame with what it cost to simulate and render.
+     *
+     * @param frameTime Frame cost in nanoseconds.
+     * @return True if the quality level changed.
+     */
+    public boolean onFrame(long frameTime) {
+        mAverage = mAverage == 0 ? frameTime : mAverage + (frameTime - mAverage) * SMOOTHING;
+
+        if (mAverage > mBudget) {
+            mOverFrames++;
+            mUnderFrames = 0;
+        } else if (mAverage < mBudget * RECOVER_SHARE) {
+            mUnderFrames++;
+            mOverFrames = 0;
+        } else {
+            mOverFrames = 0;
+            mUnderFrames = 0;
+        }
+
+        if (mOverFrames >= DEGRADE_FRAMES && mLevel < MAX_LEVEL) {
+            return setLevel(mLevel + 1);
+        } else if (mUnderFrames >= RECOVER_FRAMES && mLevel > 0) {
+            return setLevel(mLevel - 1);
+        }
+
+        return false;
+    }
+
+    /**
+     * Move to a level and start measuring again, since the old costs no longer apply.
+     *
+     * @param level Quality level.
+     * @return Always true.
+     */
+    private boolean setLevel(int level) {
+        mLevel = level;
+        mAverage = 0;
+        mOverFrames = 0;
+        mUnderFrames = 0;
+
+        return true;
+    }
+
+    /**
+     * Get the current quality level. Zero is full quality.
+     *
+     * @return Level from 0 to {@link #MAX_LEVEL}.
+     */
+    public int getLevel() {
+        return mLevel;
+    }
+
+    /**
+     * Get the share of stars that are active at the current level.
+     *
+     * @return Share from 0 to 1.
+     */
+    public float getStarShare() {
+        return STAR_SHARES[mLevel];
+    }
+
+    /**
+     * Get the smoothed frame cost.
+     *
+     * @return Frame cost in milliseconds.
+     */
+    public float getFrameTime() {
+        return mAverage / 1000000;
+    }
+
+    /**
+     * Get the frame budget.
+     *
+     * @return Frame budget in milliseconds.
+     */
+    public float getBudget() {
+        return mBudget / 1000000f;
+    }
+
+    /**
+     * Set the frame budget. Measuring starts over but the level is kept.
+     *
+     * @param budget Frame budget in milliseconds.
+     */
+    public void setBudget(float budget) {
+        mBudget = (long) (budget * 1000000);
+        mAverage = 0;
+        mOverFrames = 0;
+        mUnderFrames = 0;
+    }
+}
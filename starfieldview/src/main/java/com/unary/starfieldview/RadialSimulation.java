@@ -0,0 +1,662 @@
+package com.unary.starfieldview;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulation of stars flying out from the center of a radial starfield. Star attributes are kept in
+ * parallel primitive arrays rather than one object per star.
+ */
+public class RadialSimulation implements StarSimulation {
+
+    /**
+     * Spawn mode that places stars evenly over the disc around the drawing rectangle.
+     */
+    public static final int SPAWN_DISC = 0;
+
+    /**
+     * Spawn mode that places stars evenly over the drawing rectangle only. The star count is reduced
+     * to match the density of a disc.
+     */
+    public static final int SPAWN_VISIBLE = 1;
+
+    /**
+     * Number of values each star takes in a saved state.
+     */
+    public static final int STATE_STRIDE = 3;
+
+    private static final int TRIG_TABLE_SIZE = 4096;
+    private static final int PARALLEL_THRESHOLD = 10000;
+    private static final float STEP_TIME = 20; // ms
+    private static final int MAX_STEPS = 8;
+    private static final float STATE_SCALE = Character.MAX_VALUE;
+
+    private float mHalfWidth;
+    private float mHalfHeight;
+    private float mRadius;
+    private int mSpawnMode;
+    private float mSize;
+    private int mCount;
+    private int mRequestedCount;
+    private float[] mPoint;
+    private float[] mPreviousPoint;
+    private float[] mCos;
+    private float[] mSin;
+    private float[] mDelta;
+    private float[] mLimit;
+    private boolean mLookupTable;
+    private WorkerPool mWorkerPool;
+    private WorkerPool.RangeTask mUpdateTask;
+    private int mParallelThreshold = PARALLEL_THRESHOLD;
+    private float mTaskSpeed;
+    private float mStepTime = STEP_TIME;
+    private float mAccumulator;
+    private float mInterpolation = 1;
+    private long mSeed;
+    private long mStep;
+    private long mStepKey;
+    private final AtomicLong mRespawns = new AtomicLong();
+
+    /**
+     * Constructor to create a random cluster of stars for the given width and height.
+     *
+     * @param width     The drawing width.
+     * @param height    The drawing height.
+     * @param count     Number of stars to generate.
+     * @param size      Star size.
+     * @param spawnMode Either {@link #SPAWN_DISC} or {@link #SPAWN_VISIBLE}.
+     */
+    public RadialSimulation(int width, int height, int count, float size, int spawnMode) {
+        this(width, height, count, size, spawnMode, StarRandom.createSeed());
+    }
+
+    /**
+     * Constructor to create a reproducible cluster of stars. The same seed and inputs always give
+     * the same starfield.
+     *
+     * @param width     The drawing width.
+     * @param height    The drawing height.
+     * @param count     Number of stars to generate.
+     * @param size      Star size.
+     * @param spawnMode Either {@link #SPAWN_DISC} or {@link #SPAWN_VISIBLE}.
+     * @param seed      Random seed.
+     */
+    public RadialSimulation(int width, int height, int count, float size, int spawnMode, long seed) {
+        mHalfWidth = width / 2f;
+        mHalfHeight = height / 2f;
+        mRadius = getOuterRadius(width, height);
+        mSize = size;
+        mSpawnMode = spawnMode;
+        mRequestedCount = count;
+        mSeed = seed;
+        mStepKey = StarRandom.mix(seed);
+
+        count = getSpawnCount(count);
+
+        mCount = count;
+        mPoint = new float[count];
+        mPreviousPoint = new float[count];
+        mCos = new float[count];
+        mSin = new float[count];
+        mDelta = new float[count];
+        mLimit = new float[count];
+
+        for (int i = 0; i < count; i++) {
+            generate(i);
+        }
+    }
+
+    /**
+     * Advance the simulation by real elapsed time in fixed steps. Time left over is carried to the
+     * next call and used to interpolate between the last two steps when resolving, so motion stays
+     * smooth when the simulation and display rates differ.
+     *
+     * @param elapsed Elapsed time in milliseconds.
+     * @param speed   Rate of speed per {@value #STEP_TIME} ms.
+     */
+    @Override
+    public void simulate(float elapsed, float speed) {
+        float stepSpeed = speed * mStepTime / STEP_TIME;
+
+        // Drop time that can't be caught up on
+        mAccumulator = Math.min(mAccumulator + elapsed, mStepTime * MAX_STEPS);
+
+        while (mAccumulator >= mStepTime) {
+            update(stepSpeed);
+            mAccumulator -= mStepTime;
+        }
+
+        mInterpolation = mAccumulator / mStepTime;
+    }
+
+    /**
+     * Advance the stars forward radially by a single step. Large starfields are split across the
+     * worker pool when parallel updates are enabled.
+     *
+     * @param speed Rate of speed.
+     */
+    @Override
+    public void update(float speed) {
+        // Stars reborn in this step draw from its key
+        mStepKey = StarRandom.mix(mSeed + ++mStep * StarRandom.GOLDEN_GAMMA);
+
+        if (mWorkerPool != null && mCount >= mParallelThreshold) {
+            mTaskSpeed = speed;
+            mWorkerPool.execute(mUpdateTask, mCount);
+        } else {
+            advance(0, mCount, speed);
+        }
+    }
+
+    /**
+     * Write out the visible stars at their interpolated position.
+     *
+     * @param out Buffer of at least three floats per star.
+     * @return Number of stars written.
+     */
+    @Override
+    public int resolve(float[] out) {
+        float[] points = mPoint;
+        float[] previous = mPreviousPoint;
+        float[] cos = mCos;
+        float[] sin = mSin;
+        float[] deltas = mDelta;
+        float t = mInterpolation;
+        float scale = mSize / mRadius;
+        int visible = 0;
+
+        for (int i = 0; i < mCount; i++) {
+            float point = previous[i] + (points[i] - previous[i]) * t;
+            float radius = deltas[i] * point * scale;
+
+            // Direction is fixed until the star is reborn
+            float x = point * cos[i];
+            float y = point * sin[i];
+
+            if (Math.abs(x) - radius < mHalfWidth && Math.abs(y) - radius < mHalfHeight) {
+                out[visible * 3] = x;
+                out[visible * 3 + 1] = y;
+                out[visible * 3 + 2] = radius;
+                visible++;
+            }
+        }
+
+        return visible;
+    }
+
+    /**
+     * Advance a range of stars, keeping their last position to interpolate from. Ranges may be run
+     * concurrently as long as they don't overlap.
+     *
+     * @param from  First star, inclusive.
+     * @param to    Last star, exclusive.
+     * @param speed Rate of speed.
+     */
+    private void advance(int from, int to, float speed) {
+        float[] points = mPoint;
+        float[] previous = mPreviousPoint;
+        float[] deltas = mDelta;
+        float[] limits = mLimit;
+        int respawns = 0;
+
+        for (int i = from; i < to; i++) {
+            float point = points[i];
+            float next = point + deltas[i] * speed;
+
+            previous[i] = point;
+            points[i] = next;
+
+            if (next < 0 || next > limits[i]) {
+                generate(i);
+                respawns++;
+            }
+        }
+
+        // Once per range keeps contention low
+        if (respawns > 0) {
+            mRespawns.addAndGet(respawns);
+        }
+    }
+
+    /**
+     * Resize the simulation for a new width and height. Stars keep their place relative to the outer
+     * radius instead of being generated again. Stars that end up out of bounds are reborn on the
+     * next update.
+     *
+     * @param width  The drawing width.
+     * @param height The drawing height.
+     */
+    @Override
+    public void resize(int width, int height) {
+        float radius = getOuterRadius(width, height);
+        float ratio = radius / mRadius;
+
+        mHalfWidth = width / 2f;
+        mHalfHeight = height / 2f;
+        mRadius = radius;
+
+        for (int i = 0; i < mCount; i++) {
+            mPoint[i] *= ratio;
+            mPreviousPoint[i] *= ratio;
+            mLimit[i] = mSpawnMode == SPAWN_VISIBLE ? getEdgeDistance(mCos[i], mSin[i]) : radius;
+        }
+
+        // Visible share depends on the shape
+        if (mSpawnMode == SPAWN_VISIBLE) {
+            setCount(mRequestedCount);
+        }
+    }
+
+    /**
+     * Change the number of stars without generating the whole starfield again. Growing only spawns
+     * the new stars, and spare capacity is kept when shrinking so that growing back is cheap.
+     *
+     * @param count Number of stars.
+     */
+    @Override
+    public void setCount(int count) {
+        mRequestedCount = count;
+        count = getSpawnCount(count);
+
+        if (count > mPoint.length) {
+            int capacity = Math.max(count, mPoint.length + mPoint.length / 2);
+
+            mPoint = Arrays.copyOf(mPoint, capacity);
+            mPreviousPoint = Arrays.copyOf(mPreviousPoint, capacity);
+            mCos = Arrays.copyOf(mCos, capacity);
+            mSin = Arrays.copyOf(mSin, capacity);
+            mDelta = Arrays.copyOf(mDelta, capacity);
+            mLimit = Arrays.copyOf(mLimit, capacity);
+        }
+
+        for (int i = mCount; i < count; i++) {
+            generate(i);
+        }
+
+        mCount = count;
+    }
+
+    /**
+     * Drop the spare capacity kept from a larger star count.
+     */
+    @Override
+    public void trimToSize() {
+        if (mPoint.length == mCount) return;
+
+        mPoint = Arrays.copyOf(mPoint, mCount);
+        mPreviousPoint = Arrays.copyOf(mPreviousPoint, mCount);
+        mCos = Arrays.copyOf(mCos, mCount);
+        mSin = Arrays.copyOf(mSin, mCount);
+        mDelta = Arrays.copyOf(mDelta, mCount);
+        mLimit = Arrays.copyOf(mLimit, mCount);
+    }
+
+    /**
+     * Get the number of stars in the simulation.
+     *
+     * @return Number of stars.
+     */
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Get the number of stars that fit without growing the arrays.
+     *
+     * @return Star capacity.
+     */
+    @Override
+    public int getCapacity() {
+        return mPoint.length;
+    }
+
+    /**
+     * Change the star size. Star radii follow from their position, so nothing is generated again.
+     *
+     * @param size Star size.
+     */
+    @Override
+    public void setSize(float size) {
+        mSize = size;
+    }
+
+    /**
+     * Get the star size.
+     *
+     * @return Star size.
+     */
+    @Override
+    public float getSize() {
+        return mSize;
+    }
+
+    /**
+     * Get the number of stars respawned by updates so far.
+     *
+     * @return Running respawn count.
+     */
+    @Override
+    public long getRespawns() {
+        return mRespawns.get();
+    }
+
+    /**
+     * Find how many stars to spawn for a requested count. Spawning on the visible area only needs
+     * the visible share to keep the same density.
+     *
+     * @param count Requested number of stars.
+     * @return Number of stars to spawn.
+     */
+    private int getSpawnCount(int count) {
+        if (mSpawnMode != SPAWN_VISIBLE) return count;
+
+        return Math.round(count * 4 * mHalfWidth * mHalfHeight / (float) (Math.PI * mRadius * mRadius));
+    }
+
+    /**
+     * Pack the stars into quantized values that don't depend on the drawing size. Each star takes
+     * {@value #STATE_STRIDE} values: its angle, its distance as a share of the outer radius and
+     * its speed.
+     *
+     * @param maxCount Most stars to save.
+     * @return Packed star state.
+     */
+    @Override
+    public char[] saveState(int maxCount) {
+        int count = Math.min(mCount, maxCount);
+        char[] state = new char[count * STATE_STRIDE];
+
+        for (int i = 0; i < count; i++) {
+            double angle = Math.atan2(mSin[i], mCos[i]);
+            float point = Math.max(0, Math.min(1, mPoint[i] / mRadius));
+
+            // Turns wrap around, so use the full range
+            state[i * 3] = (char) Math.round(angle / (2 * Math.PI) * (STATE_SCALE + 1));
+            state[i * 3 + 1] = (char) Math.round(point * STATE_SCALE);
+            state[i * 3 + 2] = (char) Math.round(mDelta[i] * STATE_SCALE);
+        }
+
+        return state;
+    }
+
+    /**
+     * Restore stars packed by {@link #saveState(int)}, scaled to the current drawing size. Stars
+     * beyond the saved ones are left as they are, and stars that no longer fit are reborn on the
+     * next update.
+     *
+     * @param state Packed star state.
+     */
+    @Override
+    public void restoreState(char[] state) {
+        int count = Math.min(mCount, state.length / STATE_STRIDE);
+
+        for (int i = 0; i < count; i++) {
+            double angle = state[i * 3] / (STATE_SCALE + 1) * 2 * Math.PI;
+            float cos = (float) Math.cos(angle);
+            float sin = (float) Math.sin(angle);
+            float point = state[i * 3 + 1] / STATE_SCALE * mRadius;
+
+            mCos[i] = cos;
+            mSin[i] = sin;
+            mPoint[i] = point;
+            mPreviousPoint[i] = point;
+            mDelta[i] = state[i * 3 + 2] / STATE_SCALE;
+            mLimit[i] = mSpawnMode == SPAWN_VISIBLE ? getEdgeDistance(cos, sin) : mRadius;
+        }
+
+        mAccumulator = 0;
+        mInterpolation = 1;
+    }
+
+    /**
+     * Get the seed the stars are generated from.
+     *
+     * @return Random seed.
+     */
+    @Override
+    public long getSeed() {
+        return mSeed;
+    }
+
+    /**
+     * Set the seed the stars are generated from and generate them again. Stepping the simulation
+     * the same way afterwards gives the same frames.
+     *
+     * @param seed Random seed.
+     */
+    @Override
+    public void setSeed(long seed) {
+        mSeed = seed;
+        mStep = 0;
+        mStepKey = StarRandom.mix(seed);
+        mAccumulator = 0;
+        mInterpolation = 1;
+
+        for (int i = 0; i < mCount; i++) {
+            generate(i);
+        }
+    }
+
+    /**
+     * Get where new stars are placed.
+     *
+     * @return Either {@link #SPAWN_DISC} or {@link #SPAWN_VISIBLE}.
+     */
+    @Override
+    public int getSpawnMode() {
+        return mSpawnMode;
+    }
+
+    /**
+     * Get the length of a fixed simulation step.
+     *
+     * @return Step time in milliseconds.
+     */
+    @Override
+    public float getStepTime() {
+        return mStepTime;
+    }
+
+    /**
+     * Set the length of a fixed simulation step. Shorter steps follow the display more closely but
+     * cost more updates per frame.
+     *
+     * @param stepTime Step time in milliseconds.
+     */
+    @Override
+    public void setStepTime(float stepTime) {
+        mStepTime = stepTime;
+        mAccumulator = 0;
+    }
+
+    /**
+     * Check if large starfields are advanced in parallel on the shared worker pool.
+     *
+     * @return True if parallel.
+     */
+    @Override
+    public boolean isParallel() {
+        return mWorkerPool != null;
+    }
+
+    /**
+     * Set if large starfields are advanced in parallel on the shared worker pool.
+     *
+     * @param parallel True if parallel.
+     */
+    @Override
+    public void setParallel(boolean parallel) {
+        if (parallel && mUpdateTask == null) {
+            mUpdateTask = new WorkerPool.RangeTask() {
+                @Override
+                public void run(int from, int to) {
+                    advance(from, to, mTaskSpeed);
+                }
+            };
+        }
+
+        mWorkerPool = parallel ? WorkerPool.getInstance() : null;
+    }
+
+    /**
+     * Get the number of stars below which parallel updates are skipped.
+     *
+     * @return Star count threshold.
+     */
+    @Override
+    public int getParallelThreshold() {
+        return mParallelThreshold;
+    }
+
+    /**
+     * Set the number of stars below which parallel updates are skipped. Handing off small fields
+     * costs more than it saves.
+     *
+     * @param parallelThreshold Star count threshold.
+     */
+    @Override
+    public void setParallelThreshold(int parallelThreshold) {
+        mParallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Check if reborn stars take their direction from a sine table instead of the trig functions.
+     *
+     * @return True if using the lookup table.
+     */
+    @Override
+    public boolean isLookupTable() {
+        return mLookupTable;
+    }
+
+    /**
+     * Set if reborn stars take their direction from a sine table instead of the trig functions, and
+     * their distance and speed from a square root table. The angles are quantized to
+     * {@value #TRIG_TABLE_SIZE} steps.
+     *
+     * @param lookupTable True to use the lookup table.
+     */
+    @Override
+    public void setLookupTable(boolean lookupTable) {
+        mLookupTable = lookupTable;
+    }
+
+    /**
+     * (Re)initialize an individual star with a random starting point and radius. The direction is
+     * resolved here once so that the update loop only needs to multiply and add. Random values come
+     * from the key of the star, so this is safe to call for different stars at the same time.
+     *
+     * @param index Index of the star.
+     */
+    private void generate(int index) {
+        long key = StarRandom.key(mStepKey, index);
+        float delta = nextSqrt(key, 0);
+
+        if (mSpawnMode == SPAWN_VISIBLE) {
+            generateVisible(index, key, delta);
+            return;
+        }
+
+        float point = mRadius * nextSqrt(key, 1);
+
+        if (mLookupTable) {
+            int angle = (int) (StarRandom.nextFloat(key, 2) * TRIG_TABLE_SIZE);
+
+            // cos(t) = sin(t + pi / 2)
+            mCos[index] = SineTable.VALUES[angle + TRIG_TABLE_SIZE / 4];
+            mSin[index] = SineTable.VALUES[angle];
+        } else {
+            double theta = 2 * Math.PI * StarRandom.nextFloat(key, 2);
+
+            mCos[index] = (float) Math.cos(theta);
+            mSin[index] = (float) Math.sin(theta);
+        }
+
+        mPoint[index] = point;
+        mPreviousPoint[index] = point;
+        mDelta[index] = delta;
+        mLimit[index] = mRadius;
+    }
+
+    /**
+     * (Re)initialize an individual star at a random position inside the drawing rectangle. Picking
+     * a point directly keeps the density even and needs no trig. The star is reborn once it leaves
+     * the rectangle.
+     *
+     * @param index Index of the star.
+     * @param key   Key for the star.
+     * @param delta Change to advance.
+     */
+    private void generateVisible(int index, long key, float delta) {
+        float x = (2 * StarRandom.nextFloat(key, 1) - 1) * mHalfWidth;
+        float y = (2 * StarRandom.nextFloat(key, 2) - 1) * mHalfHeight;
+        float point = (float) Math.sqrt(x * x + y * y);
+
+        if (point == 0) {
+            x = point = 1;
+        }
+
+        float cos = x / point;
+        float sin = y / point;
+
+        mCos[index] = cos;
+        mSin[index] = sin;
+        mPoint[index] = point;
+        mPreviousPoint[index] = point;
+        mDelta[index] = delta;
+
+        mLimit[index] = getEdgeDistance(cos, sin);
+    }
+
+    /**
+     * Draw the square root of a uniform value, from the table when lookup tables are enabled.
+     *
+     * @param key  Key for the star.
+     * @param draw Draw number.
+     * @return Random value.
+     */
+    private float nextSqrt(long key, int draw) {
+        if (mLookupTable) return StarRandom.nextSqrt(key, draw);
+
+        return (float) Math.sqrt(StarRandom.nextFloat(key, draw));
+    }
+
+    /**
+     * Find the distance from the center to the edge of the drawing rectangle along a direction.
+     *
+     * @param cos Cosine of the direction.
+     * @param sin Sine of the direction.
+     * @return Distance to the edge.
+     */
+    private float getEdgeDistance(float cos, float sin) {
+        return Math.min(cos != 0 ? mHalfWidth / Math.abs(cos) : mRadius,
+                sin != 0 ? mHalfHeight / Math.abs(sin) : mRadius);
+    }
+
+    /**
+     * Utility method to find the outer radius of a given rectangle.
+     *
+     * @param width  The width.
+     * @param height The height
+     * @return Outer radius.
+     */
+    public static float getOuterRadius(int width, int height) {
+        // r = sqrt(w^2 + h^2) / 2
+        return (float) (Math.sqrt(width * width + height * height) / 2);
+    }
+
+    /**
+     * Lazily built sine table covering one and a quarter turns, so cosine can share it.
+     */
+    private static class SineTable {
+
+        static final float[] VALUES = new float[TRIG_TABLE_SIZE + TRIG_TABLE_SIZE / 4];
+
+        static {
+            for (int i = 0; i < VALUES.length; i++) {
+                VALUES[i] = (float) Math.sin(2 * Math.PI * i / TRIG_TABLE_SIZE);
+            }
+        }
+    }
+}
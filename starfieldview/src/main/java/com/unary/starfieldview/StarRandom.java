@@ -0,0 +1,96 @@
+package com.unary.starfieldview;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter based random numbers for star generation, built on the SplitMix64 mixing function. Each
+ * value depends only on a key and a draw number, so any thread can draw without shared state.
+ */
+final class StarRandom {
+
+    /**
+     * Golden ratio increment used to step between keys and draws.
+     */
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private static final int SQRT_TABLE_BITS = 12;
+    private static final int SQRT_TABLE_SIZE = 1 << SQRT_TABLE_BITS;
+    private static final float FLOAT_UNIT = 1f / (1 << 24);
+
+    private static final AtomicLong sSeedUniquifier = new AtomicLong(8682522807148012L);
+
+    /**
+     * Not to be created.
+     */
+    private StarRandom() {
+    }
+
+    /**
+     * Create a seed that differs between calls, even ones made at the same time.
+     *
+     * @return New seed.
+     */
+    static long createSeed() {
+        return mix(sSeedUniquifier.addAndGet(GOLDEN_GAMMA) ^ System.nanoTime());
+    }
+
+    /**
+     * Scramble all of the bits of a value. This is the SplitMix64 finalizer.
+     *
+     * @param z Value to mix.
+     * @return Mixed value.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Derive the key of an individual star from the key of a step.
+     *
+     * @param stepKey Key for the step.
+     * @param index   Index of the star.
+     * @return Key for the star.
+     */
+    static long key(long stepKey, int index) {
+        return mix(stepKey + index * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Draw a uniform value in the range [0, 1).
+     *
+     * @param key  Key for the star.
+     * @param draw Draw number, different for each value taken from the same key.
+     * @return Random value.
+     */
+    static float nextFloat(long key, int draw) {
+        return (mix(key + draw * GOLDEN_GAMMA) >>> 40) * FLOAT_UNIT;
+    }
+
+    /**
+     * Draw the square root of a uniform value, which spreads points evenly over a disc. The result
+     * comes from a table of {@value #SQRT_TABLE_SIZE} steps.
+     *
+     * @param key  Key for the star.
+     * @param draw Draw number, different for each value taken from the same key.
+     * @return Random value in the range (0, 1).
+     */
+    static float nextSqrt(long key, int draw) {
+        return SqrtTable.VALUES[(int) (mix(key + draw * GOLDEN_GAMMA) >>> (64 - SQRT_TABLE_BITS))];
+    }
+
+    /**
+     * Lazily built table of square roots at the middle of each step.
+     */
+    private static class SqrtTable {
+
+        static final float[] VALUES = new float[SQRT_TABLE_SIZE];
+
+        static {
+            for (int i = 0; i < VALUES.length; i++) {
+                VALUES[i] = (float) Math.sqrt((i + 0.5) / SQRT_TABLE_SIZE);
+            }
+        }
+    }
+}
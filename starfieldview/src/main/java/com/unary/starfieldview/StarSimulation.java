@@ -0,0 +1,180 @@
+package com.unary.starfieldview;
+
+/**
+ * Interface for the star math of a starfield, kept apart from rendering. Implementations only use
+ * plain Java, so they can be run and measured off the device. Tuning options an implementation has
+ * no use for may be ignored.
+ */
+public interface StarSimulation {
+
+    /**
+     * Advance the simulation by real elapsed time.
+     *
+     * @param elapsed Elapsed time in milliseconds.
+     * @param speed   Rate of speed.
+     */
+    void simulate(float elapsed, float speed);
+
+    /**
+     * Advance the stars by a single step.
+     *
+     * @param speed Rate of speed.
+     */
+    void update(float speed);
+
+    /**
+     * Write out every star that overlaps the drawing rectangle as X, Y and radius. Coordinates are
+     * relative to the center.
+     *
+     * @param out Buffer of at least three floats per star.
+     * @return Number of stars written.
+     */
+    int resolve(float[] out);
+
+    /**
+     * Resize the simulation for a new drawing width and height.
+     *
+     * @param width  The drawing width.
+     * @param height The drawing height.
+     */
+    void resize(int width, int height);
+
+    /**
+     * Get the number of stars.
+     *
+     * @return Number of stars.
+     */
+    int getCount();
+
+    /**
+     * Change the number of stars.
+     *
+     * @param count Number of stars.
+     */
+    void setCount(int count);
+
+    /**
+     * Get the star size.
+     *
+     * @return Star size.
+     */
+    float getSize();
+
+    /**
+     * Change the star size.
+     *
+     * @param size Star size.
+     */
+    void setSize(float size);
+
+    /**
+     * Get the number of stars respawned so far.
+     *
+     * @return Running respawn count.
+     */
+    long getRespawns();
+
+    /**
+     * Get the number of stars that fit without growing the storage.
+     *
+     * @return Star capacity.
+     */
+    int getCapacity();
+
+    /**
+     * Drop the spare capacity kept from a larger star count.
+     */
+    void trimToSize();
+
+    /**
+     * Pack the stars into quantized values that don't depend on the drawing size.
+     *
+     * @param maxCount Most stars to save.
+     * @return Packed star state.
+     */
+    char[] saveState(int maxCount);
+
+    /**
+     * Restore stars packed by {@link #saveState(int)}, scaled to the current drawing size.
+     *
+     * @param state Packed star state.
+     */
+    void restoreState(char[] state);
+
+    /**
+     * Get the seed the stars are generated from.
+     *
+     * @return Random seed.
+     */
+    long getSeed();
+
+    /**
+     * Set the seed the stars are generated from and generate them again.
+     *
+     * @param seed Random seed.
+     */
+    void setSeed(long seed);
+
+    /**
+     * Get where new stars are placed.
+     *
+     * @return Spawn mode.
+     */
+    int getSpawnMode();
+
+    /**
+     * Get the length of a fixed simulation step.
+     *
+     * @return Step time in milliseconds.
+     */
+    float getStepTime();
+
+    /**
+     * Set the length of a fixed simulation step.
+     *
+     * @param stepTime Step time in milliseconds.
+     */
+    void setStepTime(float stepTime);
+
+    /**
+     * Check if large starfields are advanced in parallel.
+     *
+     * @return True if parallel.
+     */
+    boolean isParallel();
+
+    /**
+     * Set if large starfields are advanced in parallel.
+     *
+     * @param parallel True if parallel.
+     */
+    void setParallel(boolean parallel);
+
+    /**
+     * Get the number of stars below which parallel updates are skipped.
+     *
+     * @return Star count threshold.
+     */
+    int getParallelThreshold();
+
+    /**
+     * Set the number of stars below which parallel updates are skipped.
+     *
+     * @param parallelThreshold Star count threshold.
+     */
+    void setParallelThreshold(int parallelThreshold);
+
+    /**
+     * Check if reborn stars are placed from lookup tables instead of the math functions.
+     *
+     * @return True if using lookup tables.
+     */
+    boolean isLookupTable();
+
+    /**
+     * Set if reborn stars are placed from lookup tables instead of the math functions.
+     *
+     * @param lookupTable True to use lookup tables.
+     */
+    void setLookupTable(boolean lookupTable);
+}
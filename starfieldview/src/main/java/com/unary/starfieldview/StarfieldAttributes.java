@@ -0,0 +1,89 @@
+package com.unary.starfieldview;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+
+import androidx.annotation.ColorInt;
+
+/**
+ * The XML attributes shared by {@link StarfieldView} and {@link StarfieldTextureView}, read once
+ * with their defaults. Each view copies what it uses into its own fields.
+ */
+final class StarfieldAttributes {
+
+    static final float VIEW_WIDTH = 256; // dp
+    static final float VIEW_HEIGHT = 256; // dp
+
+    private static final float STAR_ALPHA = 0.5f;
+    @ColorInt
+    private static final int STAR_COLOR = 0x8AFFFFFF;
+    private static final int STAR_COUNT = 2000;
+    private static final float STAR_SIZE = 2; // dp
+    private static final float STAR_SPEED = 8;
+    private static final int STAR_BUFFERING = FrameSwapChain.TRIPLE_BUFFER;
+    private static final int STAR_FRAME_RATE = 50;
+    private static final float STAR_RENDER_SCALE = 1;
+
+    final float mAlpha;
+    final boolean mAlphaOnly;
+    final int mBackend;
+    final int mBuffering;
+    @ColorInt
+    final int mColor;
+    final int mCount;
+    final float mFrameBudget;
+    final int mFrameRate;
+    final boolean mLookupTable;
+    final int mMemoryPolicy;
+    final int mPacing;
+    final boolean mParallel;
+    final boolean mRenderFilter;
+    final int mRenderMode;
+    final float mRenderScale;
+    final long mSeed;
+    final float mSize;
+    final int mSpawnMode;
+    final float mSpeed;
+    final boolean mWarmStart;
+
+    /**
+     * Constructor to read the attributes from the XML and the theme.
+     *
+     * @param context      Context given for the view. This determines the resources and theme.
+     * @param attrs        The attributes for the inflated XML tag.
+     * @param defStyleAttr Default style attributes to apply to this view.
+     * @param defStyleRes  Default style resource to apply to this view.
+     */
+    StarfieldAttributes(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        TypedArray typedArray = context.getTheme()
+                .obtainStyledAttributes(attrs, R.styleable.StarfieldView, defStyleAttr, defStyleRes);
+
+        try {
+            mAlpha = typedArray.getFloat(R.styleable.StarfieldView_starAlpha, STAR_ALPHA);
+            mAlphaOnly = typedArray.getBoolean(R.styleable.StarfieldView_starAlphaOnly, false);
+            mBackend = typedArray.getInt(R.styleable.StarfieldView_starBackend, StarfieldView.BACKEND_CANVAS);
+            mBuffering = typedArray.getInt(R.styleable.StarfieldView_starBuffering, STAR_BUFFERING);
+            mColor = typedArray.getColor(R.styleable.StarfieldView_starColor, STAR_COLOR);
+            mCount = typedArray.getInt(R.styleable.StarfieldView_starCount, STAR_COUNT);
+            mFrameBudget = typedArray.getFloat(R.styleable.StarfieldView_starFrameBudget, 0);
+            mFrameRate = typedArray.getInt(R.styleable.StarfieldView_starFrameRate, STAR_FRAME_RATE);
+            mLookupTable = typedArray.getBoolean(R.styleable.StarfieldView_starLookupTable, false);
+            mMemoryPolicy = typedArray.getInt(R.styleable.StarfieldView_starMemoryPolicy, StarfieldView.MEMORY_TRIM);
+            mPacing = typedArray.getInt(R.styleable.StarfieldView_starPacing, AnimatorThread.PACING_ANIMATOR);
+            mParallel = typedArray.getBoolean(R.styleable.StarfieldView_starParallel, false);
+            mRenderFilter = typedArray.getBoolean(R.styleable.StarfieldView_starRenderFilter, true);
+            mRenderMode = typedArray.getInt(R.styleable.StarfieldView_starRenderMode, CircularStarfield.RENDER_CIRCLES);
+            mRenderScale = typedArray.getFloat(R.styleable.StarfieldView_starRenderScale, STAR_RENDER_SCALE);
+            mSeed = typedArray.hasValue(R.styleable.StarfieldView_starSeed)
+                    ? typedArray.getInt(R.styleable.StarfieldView_starSeed, 0) : StarRandom.createSeed();
+            mSize = typedArray.getDimension(R.styleable.StarfieldView_starSize,
+                    StarfieldView.dpToPixels(context, STAR_SIZE));
+            mSpawnMode = typedArray.getInt(R.styleable.StarfieldView_starSpawnMode, CircularStarfield.SPAWN_DISC);
+            mSpeed = typedArray.getFloat(R.styleable.StarfieldView_starSpeed, STAR_SPEED);
+            mWarmStart = typedArray.getBoolean(R.styleable.StarfieldView_starWarmStart, false);
+        } finally {
+            typedArray.recycle();
+        }
+    }
+}
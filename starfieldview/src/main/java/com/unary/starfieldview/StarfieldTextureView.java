@@ -0,0 +1,606 @@
+package com.unary.starfieldview;
+
+import android.animation.TimeAnimator;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.SurfaceTexture;
+import android.os.Build;
+import android.util.AttributeSet;
+import android.view.Surface;
+import android.view.TextureView;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+/**
+ * A surface backed version of the starfield widget. Frames are drawn onto the surface from the
+ * shared animator thread, so the view is not invalidated to draw them, though the UI thread and
+ * RenderThread still composite the texture. Trails are kept in a single bitmap that only the
+ * animator thread touches.
+ *
+ * <p>It takes the same XML attributes as {@link StarfieldView}, except for those that only apply to
+ * its frame buffers: <code>starAlphaOnly</code>, <code>starBuffering</code>,
+ * <code>starRenderFilter</code> and <code>starRenderScale</code>. There is no quality governor, so
+ * <code>starFrameBudget</code> is ignored as well.</p>
+ */
+public class StarfieldTextureView extends TextureView implements TimeAnimator.TimeListener,
+        TextureView.SurfaceTextureListener {
+
+    private float mStarAlpha;
+    private int mStarBackend;
+    private int mStarCount;
+    private float mStarSize;
+    private float mStarSpeed;
+    private boolean mStarLookupTable;
+    private boolean mStarParallel;
+    private int mStarRenderMode;
+    private int mStarSpawnMode;
+    private long mStarSeed;
+    private boolean mStarWarmStart;
+    private int mStarFrameRate;
+    private long mFrameInterval;
+    private Paint mStarPaint;
+    private Paint mPaintSnapshot;
+    private volatile Config mConfig;
+    private final Object mSurfaceLock = new Object();
+    private Surface mSurface;
+    private volatile int mSurfaceWidth;
+    private volatile int mSurfaceHeight;
+    private final AnimatorHost mAnimatorHost = new AnimatorHost(this, this);
+
+    // Animator thread only
+    private Config mAppliedConfig;
+    private CircularStarfield mStarField;
+    private Paint mFieldPaint;
+    private PixelRasterizer mRasterizer;
+    private Bitmap mTrailBitmap;
+    private Canvas mTrailCanvas;
+    private int mFieldWidth;
+    private int mFieldHeight;
+    private final FrameClock mFrameClock = new FrameClock();
+    private boolean mWarmUp;
+
+    /**
+     * Simple constructor to use when creating the view from code.
+     *
+     * @param context Context given for the view. This determines the resources and theme.
+     */
+    public StarfieldTextureView(Context context) {
+        super(context);
+        init(context, null, 0, 0);
+    }
+
+    /**
+     * Constructor that is called when inflating the view from XML.
+     *
+     * @param context Context given for the view. This determines the resources and theme.
+     * @param attrs   The attributes for the inflated XML tag.
+     */
+    public StarfieldTextureView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init(context, attrs, 0, 0);
+    }
+
+    /**
+     * Constructor called when inflating from XML and applying a style.
+     *
+     * @param context      Context given for the view. This determines the resources and theme.
+     * @param attrs        The attributes for the inflated XML tag.
+     * @param defStyleAttr Default style attributes to apply to this view.
+     */
+    public StarfieldTextureView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context, attrs, defStyleAttr, 0);
+    }
+
+    /**
+     * Constructor that is used when given a default shared style.
+     *
+     * @param context      Context given for the view. This determines the resources and theme.
+     * @param attrs        The attributes for the inflated XML tag.
+     * @param defStyleAttr Default style attributes to apply to this view.
+     * @param defStyleRes  Default style resource to apply to this view.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+    public StarfieldTextureView(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        super(context, attrs, defStyleAttr, defStyleRes);
+        init(context, attrs, defStyleAttr, defStyleRes);
+    }
+
+    /**
+     * Initialize the view with its own attributes, shared with {@link StarfieldView}.
+     *
+     * @param context      Context given for the view. This determines the resources and theme.
+     * @param attrs        The attributes for the inflated XML tag.
+     * @param defStyleAttr Default style attributes to apply to this view.
+     * @param defStyleRes  Default style resource to apply to this view.
+     */
+    private void init(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        StarfieldAttributes attributes = new StarfieldAttributes(context, attrs, defStyleAttr, defStyleRes);
+
+        mStarAlpha = attributes.mAlpha;
+        mStarBackend = attributes.mBackend;
+        mStarCount = attributes.mCount;
+        mStarFrameRate = attributes.mFrameRate;
+        mStarLookupTable = attributes.mLookupTable;
+        mStarParallel = attributes.mParallel;
+        mStarRenderMode = attributes.mRenderMode;
+        mStarSeed = attributes.mSeed;
+        mStarSize = attributes.mSize;
+        mStarSpawnMode = attributes.mSpawnMode;
+        mStarSpeed = attributes.mSpeed;
+        mStarWarmStart = attributes.mWarmStart;
+
+        mFrameInterval = FrameClock.getFrameInterval(mStarFrameRate);
+        mAnimatorHost.setPacing(attributes.mPacing);
+
+        // Initialize drawing objects
+        mStarPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mStarPaint.setColor(attributes.mColor);
+        mPaintSnapshot = new Paint(mStarPaint);
+        mFieldPaint = new Paint();
+
+        publishConfig();
+
+        setOpaque(false);
+        setSurfaceTextureListener(this);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = StarfieldView.getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+        int height = StarfieldView.getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec);
+
+        setMeasuredDimension(width, height);
+    }
+
+    @Override
+    protected int getSuggestedMinimumWidth() {
+        return Math.max(super.getSuggestedMinimumWidth(),
+                StarfieldView.dpToPixels(getContext(), StarfieldAttributes.VIEW_WIDTH));
+    }
+
+    @Override
+    protected int getSuggestedMinimumHeight() {
+        return Math.max(super.getSuggestedMinimumHeight(),
+                StarfieldView.dpToPixels(getContext(), StarfieldAttributes.VIEW_HEIGHT));
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+
+        mAnimatorHost.attach();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+
+        mAnimatorHost.setVisible(visibility == VISIBLE);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mAnimatorHost.detach();
+
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    public void onSurfaceTextureAvailable(@NonNull SurfaceTexture surface, int width, int height) {
+        synchronized (mSurfaceLock) {
+            mSurface = new Surface(surface);
+            mSurfaceWidth = width;
+            mSurfaceHeight = height;
+        }
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(@NonNull SurfaceTexture surface, int width, int height) {
+        mSurfaceWidth = width;
+        mSurfaceHeight = height;
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(@NonNull SurfaceTexture surface) {
+        // Wait out a frame in progress
+        synchronized (mSurfaceLock) {
+            mSurface.release();
+            mSurface = null;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(@NonNull SurfaceTexture surface) {
+    }
+
+    @Override
+    public void onTimeUpdate(TimeAnimator animation, long totalTime, long deltaTime) {
+        mFrameClock.addTime(deltaTime);
+
+        Config config = mConfig;
+        long frameInterval = config.mFrameInterval;
+
+        // Pick up changes made on the UI thread
+        if (config != mAppliedConfig) {
+            applyConfig(config);
+        }
+
+        if (!mFrameClock.isFrameDue(frameInterval)) return;
+
+        // Scale everything by the real elapsed time
+        float elapsed = mFrameClock.startFrame(frameInterval);
+
+        if (!prepareStarField(config)) return;
+
+        if (mWarmUp) {
+            mWarmUp = false;
+
+            // Fast-forward a new starfield to full trails
+            warmUp(config);
+        } else {
+            mStarField.simulate(elapsed, config.mSpeed);
+            drawTrails(FrameClock.getKeep(config.mAlpha, elapsed));
+        }
+
+        if (mRasterizer != null) {
+            mRasterizer.upload(mTrailBitmap);
+        }
+
+        synchronized (mSurfaceLock) {
+            if (mSurface == null || !mSurface.isValid()) return;
+
+            Canvas canvas;
+
+            // Skip the frame rather than take down the shared thread
+            try {
+                canvas = mSurface.lockCanvas(null);
+            } catch (IllegalArgumentException | Surface.OutOfResourcesException e) {
+                return;
+            }
+
+            canvas.drawColor(0, PorterDuff.Mode.CLEAR);
+            canvas.drawBitmap(mTrailBitmap, 0, 0, null);
+
+            mSurface.unlockCanvasAndPost(canvas);
+        }
+    }
+
+    /**
+     * Fade out the star trails in place and draw the stars over them.
+     *
+     * @param keep Fraction of the trails to keep.
+     */
+    private void drawTrails(double keep) {
+        if (mRasterizer != null) {
+            mRasterizer.fade((int) (keep * 256 + 0.5f));
+            mStarField.render(mRasterizer);
+        } else {
+            mTrailCanvas.drawColor((int) (keep * 255 + 0.5f) << 24, PorterDuff.Mode.DST_IN);
+            mStarField.render(mTrailCanvas);
+        }
+    }
+
+    /**
+     * Run a new starfield through enough frames for the trails to fill in.
+     *
+     * @param config Current configuration.
+     */
+    private void warmUp(@NonNull final Config config) {
+        // Only once per starfield
+        FrameClock.warmUp(config.mFrameInterval, config.mAlpha, new FrameClock.Frame() {
+            @Override
+            public void draw(float elapsed, double keep) {
+                mStarField.simulate(elapsed, config.mSpeed);
+                drawTrails(keep);
+            }
+        });
+    }
+
+    /**
+     * Called on the animator thread to build or resize the starfield and trail buffer for the
+     * current surface size.
+     *
+     * @param config Current configuration.
+     * @return True if there is something to draw on.
+     */
+    private boolean prepareStarField(@NonNull Config config) {
+        int width = mSurfaceWidth;
+        int height = mSurfaceHeight;
+
+        if (width <= 0 || height <= 0) return false;
+        if (width == mFieldWidth && height == mFieldHeight) return true;
+
+        if (mStarField == null) {
+            mStarField = new CircularStarfield(width, height, config.mCount, config.mSize, mFieldPaint,
+                    config.mSpawnMode, config.mSeed);
+            mStarField.setLookupTable(config.mLookupTable);
+            mStarField.setRenderMode(config.mRenderMode);
+            mStarField.setParallel(config.mParallel);
+
+            mWarmUp = config.mWarmStart;
+        } else {
+            mStarField.resize(width, height);
+        }
+
+        mTrailBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        mTrailCanvas = new Canvas(mTrailBitmap);
+
+        if (config.mBackend == StarfieldView.BACKEND_PIXELS) {
+            mRasterizer = new PixelRasterizer(width, height, config.mSize);
+        }
+
+        mFieldWidth = width;
+        mFieldHeight = height;
+
+        return true;
+    }
+
+    /**
+     * Called on the animator thread to bring an existing starfield in line with a new
+     * configuration. New starfields are built from the configuration directly.
+     *
+     * @param config Configuration to apply.
+     */
+    private void applyConfig(@NonNull Config config) {
+        Config applied = mAppliedConfig;
+        mAppliedConfig = config;
+
+        if (applied == null || config.mPaint != applied.mPaint) {
+            mFieldPaint.set(config.mPaint);
+        }
+
+        if (mStarField == null) return;
+
+        mStarField.setCount(config.mCount);
+        mStarField.setSize(config.mSize);
+        mStarField.setLookupTable(config.mLookupTable);
+        mStarField.setRenderMode(config.mRenderMode);
+        mStarField.setParallel(config.mParallel);
+
+        if (config.mSeed != applied.mSeed) {
+            mStarField.setSeed(config.mSeed);
+        }
+
+        // Stamps are only built again for a new size
+        if (mRasterizer != null && config.mSize != applied.mSize) {
+            mRasterizer.setSize(config.mSize);
+        }
+    }
+
+    /**
+     * Publish a snapshot of the current configuration to the animator thread. Only called on the UI
+     * thread.
+     */
+    private void publishConfig() {
+        mConfig = new Config(this);
+    }
+
+    /**
+     * Run something on the animator thread between time updates. When the view is not attached
+     * it waits until the view is attached again.
+     *
+     * @param runnable Work to run.
+     */
+    public void queueEvent(@NonNull Runnable runnable) {
+        mAnimatorHost.queueEvent(runnable);
+    }
+
+    /**
+     * Start the animator. It only runs while the window is visible.
+     */
+    public void start() {
+        mAnimatorHost.setRunning(true);
+    }
+
+    /**
+     * Stop the animator. The last frame stays on the surface.
+     */
+    public void stop() {
+        mAnimatorHost.setRunning(false);
+    }
+
+    /**
+     * Get the way time updates are paced.
+     *
+     * @return Either {@link AnimatorThread#PACING_ANIMATOR} or {@link AnimatorThread#PACING_VSYNC}.
+     */
+    public int getPacing() {
+        return mAnimatorHost.getPacing();
+    }
+
+    /**
+     * Set the way time updates are paced.
+     *
+     * @param pacing Either {@link AnimatorThread#PACING_ANIMATOR} or {@link AnimatorThread#PACING_VSYNC}.
+     */
+    public void setPacing(int pacing) {
+        mAnimatorHost.setPacing(pacing);
+    }
+
+    /**
+     * Get the star alpha value.
+     *
+     * @return Alpha value.
+     */
+    public float getStarAlpha() {
+        return mStarAlpha;
+    }
+
+    /**
+     * Set the star alpha value. This is used to fade out the star trails.
+     *
+     * @param starAlpha Alpha value.
+     */
+    public void setStarAlpha(float starAlpha) {
+        mStarAlpha = starAlpha;
+        publishConfig();
+    }
+
+    /**
+     * Get the star color.
+     *
+     * @return Star color.
+     */
+    @ColorInt
+    public int getStarColor() {
+        return mStarPaint.getColor();
+    }
+
+    /**
+     * Set the star color.
+     *
+     * @param starColor Star color.
+     */
+    public void setStarColor(@ColorInt int starColor) {
+        mStarPaint.setColor(starColor);
+        mPaintSnapshot = new Paint(mStarPaint);
+        publishConfig();
+    }
+
+    /**
+     * Get the number of stars.
+     *
+     * @return Number of stars.
+     */
+    public int getStarCount() {
+        return mStarCount;
+    }
+
+    /**
+     * Set the number of stars. The starfield is changed in place on the animator thread.
+     *
+     * @param starCount Number of stars.
+     */
+    public void setStarCount(int starCount) {
+        mStarCount = starCount;
+        publishConfig();
+    }
+
+    /**
+     * Get the star size.
+     *
+     * @return Star size.
+     */
+    public float getStarSize() {
+        return mStarSize;
+    }
+
+    /**
+     * Set the star size. The starfield is changed in place on the animator thread.
+     *
+     * @param starSize Star size.
+     */
+    public void setStarSize(float starSize) {
+        mStarSize = starSize;
+        publishConfig();
+    }
+
+    /**
+     * Get the star speed.
+     *
+     * @return Star speed.
+     */
+    public float getStarSpeed() {
+        return mStarSpeed;
+    }
+
+    /**
+     * Set the star speed. Negative values move the stars inward.
+     *
+     * @param starSpeed Star speed.
+     */
+    public void setStarSpeed(float starSpeed) {
+        mStarSpeed = starSpeed;
+        publishConfig();
+    }
+
+    /**
+     * Get the target frame rate.
+     *
+     * @return Frames per second, or zero for the display rate.
+     */
+    public int getStarFrameRate() {
+        return mStarFrameRate;
+    }
+
+    /**
+     * Set the target frame rate.
+     *
+     * @param starFrameRate Frames per second, or zero for the display rate.
+     */
+    public void setStarFrameRate(int starFrameRate) {
+        mStarFrameRate = starFrameRate;
+        mFrameInterval = FrameClock.getFrameInterval(starFrameRate);
+        publishConfig();
+    }
+
+    /**
+     * Get the seed the stars are generated from.
+     *
+     * @return Random seed.
+     */
+    public long getStarSeed() {
+        return mStarSeed;
+    }
+
+    /**
+     * Set the seed the stars are generated from. The starfield is generated again on the animator
+     * thread.
+     *
+     * @param starSeed Random seed.
+     */
+    public void setStarSeed(long starSeed) {
+        mStarSeed = starSeed;
+        publishConfig();
+    }
+
+    /**
+     * Immutable snapshot of everything the animator thread needs from the view. The UI thread
+     * publishes a new one through a volatile field whenever something changes.
+     */
+    private static final class Config {
+
+        private final float mAlpha;
+        private final float mSpeed;
+        private final long mFrameInterval;
+        private final int mCount;
+        private final float mSize;
+        private final boolean mLookupTable;
+        private final boolean mParallel;
+        private final int mRenderMode;
+        private final int mSpawnMode;
+        private final long mSeed;
+        private final int mBackend;
+        private final boolean mWarmStart;
+        private final Paint mPaint;
+
+        /**
+         * Constructor to copy the current values from the view.
+         *
+         * @param view View to copy from.
+         */
+        private Config(@NonNull StarfieldTextureView view) {
+            mAlpha = view.mStarAlpha;
+            mSpeed = view.mStarSpeed;
+            mFrameInterval = view.mFrameInterval;
+            mCount = view.mStarCount;
+            mSize = view.mStarSize;
+            mLookupTable = view.mStarLookupTable;
+            mParallel = view.mStarParallel;
+            mRenderMode = view.mStarRenderMode;
+            mSpawnMode = view.mStarSpawnMode;
+            mSeed = view.mStarSeed;
+            mBackend = view.mStarBackend;
+            mWarmStart = view.mStarWarmStart;
+            mPaint = view.mPaintSnapshot;
+        }
+    }
+}
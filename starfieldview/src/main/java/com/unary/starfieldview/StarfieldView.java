@@ -2,14 +2,18 @@ package com.unary.starfieldview;
 
 import android.animation.TimeAnimator;
 import android.annotation.SuppressLint;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
-import android.content.res.TypedArray;
+import android.content.res.Configuration;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
 import android.graphics.Rect;
 import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.util.AttributeSet;
 import android.util.Property;
 import android.view.View;
@@ -17,8 +21,12 @@ import android.view.View;
 import androidx.annotation.ColorInt;
 import androidx.annotation.Dimension;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * A styleable widget that recreates the classic radial starfield effect. It features a number of
  * customizations for the animation and effects.
@@ -26,37 +34,120 @@ import androidx.annotation.RequiresApi;
  * <p><strong>XML attributes</strong></p>
  * <p>The following optional attributes can be used to change the look and feel of the view:</p>
  * <pre>
- *   app:starAlpha="float"    // How quickly the star trails fade
- *   app:starColor="color"    // A simple color or reference
- *   app:starCount="integer"  // Default number of stars is 2000
- *   app:starSize="dimension" // Seed value used for size. Default is "2dp"
- *   app:starSpeed="float"    // Rate of starfield movement (+/-)
+ *   app:starAlpha="float"          // How quickly the star trails fade
+ *   app:starAlphaOnly="boolean"    // Store coverage only and tint with the star color
+ *   app:starBackend="enum"         // Draw with the "canvas" (default) or software "pixels"
+ *   app:starBuffering="enum"       // Frame buffering of "double" or "triple" (default)
+ *   app:starColor="color"          // A simple color or reference
+ *   app:starCount="integer"        // Default number of stars is 2000
+ *   app:starFrameBudget="float"    // Frame time in ms to hold by shedding stars. Default is off
+ *   app:starFrameRate="integer"    // Target frames per second or "display". Default is 50
+ *   app:starLookupTable="boolean"  // Quantized trig and square root tables for reborn stars
+ *   app:starMemoryPolicy="enum"    // Release memory on "trim" (default), when "hidden" or "keep"
+ *   app:starPacing="enum"          // Pace frames with an "animator" (default) or "vsync"
+ *   app:starParallel="boolean"     // Advance large starfields on multiple cores
+ *   app:starRenderFilter="boolean" // Filter scaled up frames. Default is true
+ *   app:starRenderMode="enum"      // Draw "circles" (default) or batched "points"
+ *   app:starRenderScale="float"    // Fraction of the resolution to render at. Default is 1
+ *   app:starSeed="integer"         // Fixed seed for a reproducible starfield. Default is random
+ *   app:starSize="dimension"       // Seed value used for size. Default is "2dp"
+ *   app:starSpawnMode="enum"       // Spawn over the whole "disc" (default) or "visible" area
+ *   app:starSpeed="float"          // Rate of starfield movement (+/-)
+ *   app:starWarmStart="boolean"    // Fast-forward to full trails before the first frame
  * </pre>
  * <p>See {@link R.styleable#StarfieldView StarfieldView Attributes}, {@link R.styleable#View View Attributes}</p>
  */
 public class StarfieldView extends AnimatorView {
 
-    private static final float VIEW_WIDTH = 256; // dp
-    private static final float VIEW_HEIGHT = 256; // dp
-    private static final float STAR_ALPHA = 0.5f;
-    @ColorInt
-    private static final int STAR_COLOR = 0x8AFFFFFF;
-    private static final int STAR_COUNT = 2000;
-    private static final float STAR_SIZE = 2; // dp
-    private static final float STAR_SPEED = 8;
-    private static final long DELTA_TIME = 20;
+    /**
+     * Backend that draws stars with the canvas into the frame buffers.
+     */
+    public static final int BACKEND_CANVAS = 0;
+
+    /**
+     * Backend that rasterizes stars into an integer buffer and uploads it once per frame.
+     */
+    public static final int BACKEND_PIXELS = 1;
+
+    /**
+     * Memory policy that holds on to the buffers and stars for as long as the view is attached.
+     */
+    public static final int MEMORY_KEEP = 0;
+
+    /**
+     * Memory policy that releases the buffers and packs the stars when the system asks to trim
+     * memory while the view is hidden, and drops spare star capacity while it is shown.
+     */
+    public static final int MEMORY_TRIM = 1;
+
+    /**
+     * Memory policy that also releases the buffers and packs the stars whenever the window is
+     * hidden.
+     */
+    public static final int MEMORY_HIDDEN = 2;
+
+    private static final int MAX_SAVED_STARS = 2000;
+    private static final long PACK_INTERVAL = 1000; // ms
 
     private float mStarAlpha;
+    private boolean mStarAlphaOnly;
     private int mStarCount;
     private float mStarSize;
     private float mStarSpeed;
+    private int mStarBuffering;
+    private int mStarBackend;
+    private boolean mStarLookupTable;
+    private int mStarRenderMode;
+    private float mStarRenderScale;
+    private int mStarSpawnMode;
+    private long mStarSeed;
+    private boolean mStarWarmStart;
+    private int mStarMemoryPolicy;
+    private ComponentCallbacks2 mTrimCallbacks;
+    private boolean mReleased;
+    private boolean mStarRenderFilter;
+    private float mFrameScale;
+    private boolean mStarParallel;
+    private int mStarFrameRate;
+    private long mFrameInterval;
+    private float mStarFrameBudget;
+    private volatile QualityGovernor mGovernor;
+    private volatile FrameMetrics mMetrics;
+    private volatile FrameMetrics.OnMetricsListener mOnMetricsListener;
+    private Runnable mReportMetricsRunnable;
     private Paint mStarPaint;
+    private Paint mPaintSnapshot;
+    private Paint mFramePaint;
     private Rect mDrawingRect;
-    private Canvas mStarCanvas;
-    private Bitmap mCanvasBitmap;
-    private Bitmap mBufferBitmap;
+    private FrameSwapChain mSwapChain;
+    private FrameSwapChain mRetiredSwapChain;
+    private PixelRasterizer mRasterizer;
+    private int mFieldWidth;
+    private int mFieldHeight;
+    private int mFieldGeneration;
+    private final AtomicReference<char[]> mRestoredStars = new AtomicReference<>();
+    private volatile char[] mPackedStars;
+    private boolean mInvalidBuffers = true;
+    private volatile Config mConfig;
+    private volatile long mFirstFrameTime = -1;
+
+    // Animator thread only
+    private Config mAppliedConfig;
     private CircularStarfield mStarField;
-    private long mDeltaTime;
+    private Paint mFieldPaint;
+    private Paint mFadePaint;
+    private TrailTiles mTrailTiles;
+    private FrameMetrics mRecordedMetrics;
+    private long mPacingSkipped;
+    private final FrameClock mFrameClock = new FrameClock();
+    private long mFirstFrameStart;
+    private boolean mWarmUp;
+    private char[] mParkedStars;
+    private int mParkedGeneration;
+    private long mPackTime;
+    private Runnable mPackStarsRunnable;
+    private Runnable mParkStarsRunnable;
+    private Runnable mTrimStarsRunnable;
 
     /**
      * Simple constructor to use when creating the view from code.
@@ -115,26 +206,120 @@ public class StarfieldView extends AnimatorView {
      * @param defStyleRes  Default style resource to apply to this view.
      */
     private void init(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
-        TypedArray typedArray = context.getTheme()
-                .obtainStyledAttributes(attrs, R.styleable.StarfieldView, defStyleAttr, defStyleRes);
+        StarfieldAttributes attributes = new StarfieldAttributes(context, attrs, defStyleAttr, defStyleRes);
 
-        int starColor;
+        mStarAlpha = attributes.mAlpha;
+        mStarAlphaOnly = attributes.mAlphaOnly;
+        mStarBackend = attributes.mBackend;
+        mStarBuffering = attributes.mBuffering;
+        mStarCount = attributes.mCount;
+        mStarFrameBudget = attributes.mFrameBudget;
+        mStarFrameRate = attributes.mFrameRate;
+        mStarLookupTable = attributes.mLookupTable;
+        mStarMemoryPolicy = attributes.mMemoryPolicy;
+        mStarParallel = attributes.mParallel;
+        mStarRenderFilter = attributes.mRenderFilter;
+        mStarRenderMode = attributes.mRenderMode;
+        mStarRenderScale = attributes.mRenderScale;
+        mStarSeed = attributes.mSeed;
+        mStarSize = attributes.mSize;
+        mStarSpawnMode = attributes.mSpawnMode;
+        mStarSpeed = attributes.mSpeed;
+        mStarWarmStart = attributes.mWarmStart;
 
-        try {
-            mStarAlpha = typedArray.getFloat(R.styleable.StarfieldView_starAlpha, STAR_ALPHA);
-            starColor = typedArray.getColor(R.styleable.StarfieldView_starColor, STAR_COLOR);
-            mStarCount = typedArray.getInt(R.styleable.StarfieldView_starCount, STAR_COUNT);
-            mStarSize = typedArray.getDimension(R.styleable.StarfieldView_starSize, dpToPixels(context, STAR_SIZE));
-            mStarSpeed = typedArray.getFloat(R.styleable.StarfieldView_starSpeed, STAR_SPEED);
-        } finally {
-            typedArray.recycle();
-        }
+        mFrameInterval = FrameClock.getFrameInterval(mStarFrameRate);
+        mGovernor = mStarFrameBudget > 0 ? new QualityGovernor(mStarFrameBudget) : null;
+        setPacing(attributes.mPacing);
 
         // Initialize drawing objects
         mStarPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mStarPaint.setColor(starColor);
+        mStarPaint.setColor(attributes.mColor);
+        mPaintSnapshot = new Paint(mStarPaint);
+        mFieldPaint = new Paint();
+
+        // Copies the previous frame while fading it
+        mFadePaint = new Paint();
+        mFadePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC));
+
+        // Colorizes coverage only frames
+        mFramePaint = new Paint();
+        mFramePaint.setFilterBitmap(mStarRenderFilter);
 
         mDrawingRect = new Rect();
+
+        // Reusable runnable
+        mReportMetricsRunnable = new Runnable() {
+            @Override
+            public void run() {
+                FrameMetrics metrics = mMetrics;
+
+                if (metrics != null && mOnMetricsListener != null) {
+                    mOnMetricsListener.onMetrics(metrics.snapshot());
+                }
+            }
+        };
+
+        // Reusable runnable
+        mPackStarsRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if (mStarField != null) {
+                    packStars();
+                }
+            }
+        };
+
+        // Reusable runnable
+        mParkStarsRunnable = new Runnable() {
+            @Override
+            public void run() {
+                Config config = mConfig;
+
+                // Let go of the old buffers too
+                if (config != mAppliedConfig) {
+                    applyConfig(config);
+                }
+
+                // Shown again before this ran
+                if (mStarField != null && config.mSwapChain == null) {
+                    // Packed stars take a fraction of the arrays
+                    mParkedStars = mStarField.saveState(Integer.MAX_VALUE);
+                    mParkedGeneration = mAppliedConfig.mFieldGeneration;
+                    mPackedStars = Arrays.copyOf(mParkedStars,
+                            Math.min(mParkedStars.length, MAX_SAVED_STARS * RadialSimulation.STATE_STRIDE));
+                    mStarField = null;
+                }
+            }
+        };
+
+        // Reusable runnable
+        mTrimStarsRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if (mStarField != null) {
+                    mStarField.trimToSize();
+                }
+            }
+        };
+
+        // Reusable callbacks
+        mTrimCallbacks = new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                trimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(@NonNull Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                trimMemory(TRIM_MEMORY_COMPLETE);
+            }
+        };
+
+        publishConfig();
     }
 
     @Override
@@ -147,12 +332,14 @@ public class StarfieldView extends AnimatorView {
 
     @Override
     protected int getSuggestedMinimumWidth() {
-        return Math.max(super.getSuggestedMinimumWidth(), dpToPixels(getContext(), VIEW_WIDTH));
+        return Math.max(super.getSuggestedMinimumWidth(),
+                dpToPixels(getContext(), StarfieldAttributes.VIEW_WIDTH));
     }
 
     @Override
     protected int getSuggestedMinimumHeight() {
-        return Math.max(super.getSuggestedMinimumHeight(), dpToPixels(getContext(), VIEW_HEIGHT));
+        return Math.max(super.getSuggestedMinimumHeight(),
+                dpToPixels(getContext(), StarfieldAttributes.VIEW_HEIGHT));
     }
 
     @SuppressLint("DrawAllocation")
@@ -178,54 +365,526 @@ public class StarfieldView extends AnimatorView {
         mDrawingRect.set(paddingStart, getPaddingTop(),
                 getWidth() - paddingEnd, getHeight() - getPaddingBottom());
 
-        if (mDrawingRect.width() < 1 || mDrawingRect.height() < 1) return;
+        int fieldWidth = mDrawingRect.width();
+        int fieldHeight = mDrawingRect.height();
 
-        // Allocate here for padding
-        mCanvasBitmap = Bitmap.createBitmap(mDrawingRect.width(), mDrawingRect.height(), Bitmap.Config.ARGB_8888);
-        mStarCanvas = new Canvas(mCanvasBitmap);
+        if (fieldWidth < 1 || fieldHeight < 1) return;
 
-        // Don't block the UI with this
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                mStarField = new CircularStarfield(mDrawingRect.width(), mDrawingRect.height(), mStarCount, mStarSize, mStarPaint);
-            }
-        }).start();
+        boolean resized = fieldWidth != mFieldWidth || fieldHeight != mFieldHeight;
+
+        mFieldWidth = fieldWidth;
+        mFieldHeight = fieldHeight;
+
+        // Allocated again once shown
+        if (mReleased) return;
+
+        // Keep everything for an identical layout
+        if (resized || mInvalidBuffers) {
+            allocateBuffers(fieldWidth, fieldHeight);
+            mInvalidBuffers = false;
+
+            // Size and buffers are handed over together
+            publishConfig();
+        }
+    }
+
+    /**
+     * Allocate the frame buffers for the given drawing size. Frames may be smaller than the view
+     * when rendering at a reduced scale.
+     *
+     * @param fieldWidth  Drawing width.
+     * @param fieldHeight Drawing height.
+     */
+    private void allocateBuffers(int fieldWidth, int fieldHeight) {
+        // Software backend always uploads color
+        boolean pixels = mStarBackend == BACKEND_PIXELS;
+        Bitmap.Config config = mStarAlphaOnly && !pixels ? Bitmap.Config.ALPHA_8 : Bitmap.Config.ARGB_8888;
+
+        float scale = Math.max(0.01f, Math.min(1, mStarRenderScale));
+        int width = Math.max(1, Math.round(fieldWidth * scale));
+        int height = Math.max(1, Math.round(fieldHeight * scale));
+
+        // Old frames stand in until the new buffers have one
+        if (mSwapChain != null && mSwapChain.hasFrame()) {
+            mRetiredSwapChain = mSwapChain;
+        }
+
+        mSwapChain = new FrameSwapChain(width, height, mStarBuffering, config);
+        mRasterizer = pixels ? new PixelRasterizer(width, height, mStarSize, scale) : null;
+        mFrameScale = scale;
+
+        FrameMetrics metrics = mMetrics;
+
+        if (metrics != null) {
+            metrics.setBufferBytes(getBufferBytes());
+        }
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
-        if (mBufferBitmap != null) {
-            canvas.drawBitmap(mBufferBitmap, mDrawingRect.left, mDrawingRect.top, null);
+        FrameSwapChain swapChain = mSwapChain;
+
+        if (swapChain != null && !swapChain.hasFrame() && mRetiredSwapChain != null) {
+            swapChain = mRetiredSwapChain;
+        } else {
+            mRetiredSwapChain = null;
+        }
+
+        if (swapChain != null) {
+            Bitmap frame = swapChain.acquireFront();
+
+            // Alpha bitmaps are drawn in the paint color
+            mFramePaint.setColor(frame.getConfig() == Bitmap.Config.ALPHA_8
+                    ? mStarPaint.getColor() | 0xFF000000 : 0xFF000000);
+
+            if (frame.getWidth() == mDrawingRect.width() && frame.getHeight() == mDrawingRect.height()) {
+                canvas.drawBitmap(frame, mDrawingRect.left, mDrawingRect.top, mFramePaint);
+            } else {
+                canvas.drawBitmap(frame, null, mDrawingRect, mFramePaint);
+            }
+
+            swapChain.releaseFront();
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+
+        getContext().getApplicationContext().registerComponentCallbacks(mTrimCallbacks);
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+
+        if (visibility == VISIBLE) {
+            reallocateBuffers();
+        } else if (mStarMemoryPolicy == MEMORY_HIDDEN) {
+            releaseBuffers();
+        } else {
+            // Ready for the state to be saved
+            queueEvent(mPackStarsRunnable);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        getContext().getApplicationContext().unregisterComponentCallbacks(mTrimCallbacks);
+    }
+
+    /**
+     * Respond to memory pressure according to the memory policy. Buffers are only released while
+     * the window is hidden, otherwise spare star capacity is dropped.
+     *
+     * @param level Trim level from {@link ComponentCallbacks2}.
+     */
+    private void trimMemory(int level) {
+        if (mStarMemoryPolicy == MEMORY_KEEP) return;
+
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN && getWindowVisibility() != VISIBLE) {
+            releaseBuffers();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            queueEvent(mTrimStarsRunnable);
+        }
+    }
+
+    /**
+     * Release the frame buffers and have the animator thread pack the stars away. Nothing is
+     * allocated again until the window is shown.
+     */
+    private void releaseBuffers() {
+        if (mReleased) return;
+
+        mReleased = true;
+        mSwapChain = null;
+        mRetiredSwapChain = null;
+        mRasterizer = null;
+        publishConfig();
+
+        queueEvent(mParkStarsRunnable);
+
+        FrameMetrics metrics = mMetrics;
+
+        if (metrics != null) {
+            metrics.setBufferBytes(0);
+        }
+    }
+
+    /**
+     * Allocate the frame buffers again after they were released. The starfield is rebuilt from the
+     * packed stars on the next time update.
+     */
+    private void reallocateBuffers() {
+        if (!mReleased) return;
+
+        mReleased = false;
+
+        if (mFieldWidth > 0 && mFieldHeight > 0) {
+            allocateBuffers(mFieldWidth, mFieldHeight);
+            mInvalidBuffers = false;
+            publishConfig();
         }
     }
 
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState savedState = new SavedState(super.onSaveInstanceState());
+        savedState.mSeed = mStarSeed;
+
+        // Not built from the restored stars yet
+        char[] stars = mPackedStars;
+        savedState.mStars = stars != null ? stars : mRestoredStars.get();
+
+        // Fresher stars for a later save
+        queueEvent(mPackStarsRunnable);
+
+        return savedState;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+
+        // Rebuild from the saved stars instead of new ones
+        mStarSeed = savedState.mSeed;
+        mRestoredStars.set(savedState.mStars);
+        mFieldGeneration++;
+        publishConfig();
+    }
+
     @Override
     public void onTimeUpdate(TimeAnimator animation, long totalTime, long deltaTime) {
-        mDeltaTime += deltaTime;
+        mFrameClock.addTime(deltaTime);
+
+        Config config = mConfig;
+
+        // Pick up changes made on the UI thread, or rebuild after being parked
+        if (config != mAppliedConfig || (mStarField == null && config.mSwapChain != null)) {
+            applyConfig(config);
+        }
+
+        FrameSwapChain swapChain = config.mSwapChain;
+        FrameMetrics metrics = mMetrics;
+        long frameInterval = config.mFrameInterval;
 
-        if (mStarField == null || mDeltaTime < DELTA_TIME) return;
+        if (metrics != null) {
+            recordMetrics(metrics, deltaTime);
+        }
+
+        mPackTime += deltaTime;
+
+        // Saving the state can't wait on this thread
+        if (mPackTime >= PACK_INTERVAL && mStarField != null) {
+            packStars();
+        }
 
-        mDeltaTime = 0;
+        if (mStarField == null || swapChain == null || !mFrameClock.isFrameDue(frameInterval)) return;
 
-        // Fade out the star trails
-        mStarCanvas.drawColor((int) (mStarAlpha * 255) << 24, PorterDuff.Mode.DST_OUT);
-        mStarField.draw(mStarCanvas, mStarSpeed);
+        Canvas canvas = swapChain.lockCanvas();
 
-        mBufferBitmap = Bitmap.createBitmap(mCanvasBitmap);
+        // Previous frame not drawn yet
+        if (canvas == null) {
+            if (metrics != null) {
+                metrics.recordSkipped(1);
+            }
+
+            return;
+        }
 
-        if (getHandler() != null) {
-            getHandler().post(new Runnable() {
-                @Override
-                public void run() {
-                    invalidate();
+        // Scale everything by the real elapsed time
+        float elapsed = mFrameClock.startFrame(frameInterval);
+
+        if (mWarmUp) {
+            mWarmUp = false;
+
+            // Fast-forward a new starfield to full trails
+            warmUp(canvas, config);
+        } else {
+            renderFrame(canvas, swapChain, config, metrics, elapsed);
+        }
+
+        swapChain.unlockCanvasAndPost();
+
+        if (mFirstFrameStart != 0) {
+            recordFirstFrame(metrics);
+        }
+
+        // Draw on the next display frame
+        postInvalidateOnAnimation();
+    }
+
+    /**
+     * Called on the animator thread to advance the stars by the real elapsed time and render them
+     * over the faded previous frame.
+     *
+     * @param canvas    Canvas of the back buffer.
+     * @param swapChain Frame buffers.
+     * @param config    Current configuration.
+     * @param metrics   Metrics to record to, or null.
+     * @param elapsed   Time since the last frame.
+     */
+    private void renderFrame(@NonNull Canvas canvas, @NonNull FrameSwapChain swapChain, @NonNull Config config,
+                             FrameMetrics metrics, float elapsed) {
+        QualityGovernor governor = mGovernor;
+        boolean timed = governor != null || metrics != null;
+        long startTime = timed ? System.nanoTime() : 0;
+
+        // Fixed steps, rendered in between
+        mStarField.simulate(elapsed, config.mSpeed);
+
+        long simulatedTime = timed ? System.nanoTime() : 0;
+
+        double keep = FrameClock.getKeep(config.mAlpha, elapsed);
+        PixelRasterizer rasterizer = config.mRasterizer;
+
+        if (rasterizer != null) {
+            // Rasterize in software and upload once
+            rasterizer.fade((int) (keep * 256 + 0.5f));
+            mStarField.render(rasterizer);
+            rasterizer.upload(swapChain.getBackBitmap());
+        } else {
+            // Fade out the lit star trails while copying forward
+            mFadePaint.setAlpha((int) (keep * 255 + 0.5f));
+            mTrailTiles.copyForward(canvas, swapChain.getBackBitmap(), swapChain.getPreviousBitmap(), mFadePaint);
+
+            // Simulation stays at full resolution
+            int saveCount = canvas.save();
+            canvas.scale(config.mFrameScale, config.mFrameScale);
+            mStarField.render(canvas);
+            canvas.restoreToCount(saveCount);
+
+            mStarField.markTiles(mTrailTiles, config.mFrameScale);
+            mTrailTiles.post(swapChain.getBackBitmap());
+        }
+
+        if (timed) {
+            long endTime = System.nanoTime();
+
+            if (metrics != null) {
+                metrics.recordFrame(simulatedTime - startTime, endTime - simulatedTime);
+            }
+
+            // Shed or restore stars to hold the budget
+            if (governor != null && governor.onFrame(endTime - startTime)) {
+                mStarField.setCount(getActiveStarCount(config.mCount));
+            }
+        }
+    }
+
+    /**
+     * Called on the animator thread to run a new starfield through enough frames for the trails to
+     * fill in, drawing them all into the back buffer.
+     *
+     * @param canvas Canvas of the back buffer.
+     * @param config Current configuration.
+     */
+    private void warmUp(@NonNull final Canvas canvas, @NonNull final Config config) {
+        final PixelRasterizer rasterizer = config.mRasterizer;
+
+        if (rasterizer != null) {
+            rasterizer.fade(0);
+        } else {
+            canvas.drawColor(0, PorterDuff.Mode.CLEAR);
+        }
+
+        // Only once per starfield
+        FrameClock.warmUp(config.mFrameInterval, config.mAlpha, new FrameClock.Frame() {
+            @Override
+            public void draw(float elapsed, double keep) {
+                mStarField.simulate(elapsed, config.mSpeed);
+
+                if (rasterizer != null) {
+                    rasterizer.fade((int) (keep * 256 + 0.5f));
+                    mStarField.render(rasterizer);
+                } else {
+                    // Fade in place, there is no separate previous frame yet
+                    canvas.drawColor((int) (keep * 255 + 0.5f) << 24, PorterDuff.Mode.DST_IN);
+
+                    int saveCount = canvas.save();
+                    canvas.scale(config.mFrameScale, config.mFrameScale);
+                    mStarField.render(canvas);
+                    canvas.restoreToCount(saveCount);
                 }
-            });
+            }
+        });
+
+        if (rasterizer != null) {
+            rasterizer.upload(config.mSwapChain.getBackBitmap());
+        } else {
+            // Too many frames to track, assume it is all lit
+            mTrailTiles.markAll();
+            mTrailTiles.post(config.mSwapChain.getBackBitmap());
+        }
+    }
+
+    /**
+     * Called on the animator thread once the first frame of a new starfield is posted.
+     *
+     * @param metrics Metrics to record to, or null.
+     */
+    private void recordFirstFrame(FrameMetrics metrics) {
+        long firstFrameTime = (System.nanoTime() - mFirstFrameStart) / 1000000;
+        mFirstFrameStart = 0;
+        mFirstFrameTime = firstFrameTime;
+
+        if (metrics != null) {
+            metrics.setFirstFrameTime(firstFrameTime);
+        }
+    }
+
+    /**
+     * Called on the animator thread for every time update while metrics are enabled. Frames skipped
+     * by vsync pacing are picked up here, and listeners hear about each closed reporting window.
+     *
+     * @param metrics   Metrics to record to.
+     * @param deltaTime Time since the last update.
+     */
+    private void recordMetrics(@NonNull FrameMetrics metrics, long deltaTime) {
+        long pacingSkipped = getSkippedFrames();
+
+        // Count from when they were enabled
+        if (metrics != mRecordedMetrics) {
+            mRecordedMetrics = metrics;
+            mPacingSkipped = pacingSkipped;
+        }
+
+        if (pacingSkipped > mPacingSkipped) {
+            metrics.recordSkipped(pacingSkipped - mPacingSkipped);
+        }
+
+        mPacingSkipped = pacingSkipped;
+
+        long respawns = mStarField != null ? mStarField.getRespawns() : 0;
+
+        if (metrics.recordTime(deltaTime, respawns) && mOnMetricsListener != null) {
+            post(mReportMetricsRunnable);
+        }
+    }
+
+    /**
+     * Called on the animator thread to publish a snapshot of the stars for the saved state.
+     */
+    private void packStars() {
+        mPackedStars = mStarField.saveState(MAX_SAVED_STARS);
+        mPackTime = 0;
+    }
+
+    /**
+     * Get the memory held by the frame buffers and the software raster buffer.
+     *
+     * @return Buffer memory in bytes.
+     */
+    private long getBufferBytes() {
+        FrameSwapChain swapChain = mSwapChain;
+        PixelRasterizer rasterizer = mRasterizer;
+
+        return (swapChain != null ? swapChain.getByteCount() : 0)
+                + (rasterizer != null ? rasterizer.getByteCount() : 0);
+    }
+
+    /**
+     * Called on the animator thread to bring the starfield in line with a new configuration. The
+     * starfield is built here as well, so only this thread ever touches it.
+     *
+     * @param config Configuration to apply.
+     */
+    private void applyConfig(@NonNull Config config) {
+        Config applied = mAppliedConfig;
+        mAppliedConfig = config;
+
+        if (applied == null || config.mPaint != applied.mPaint) {
+            mFieldPaint.set(config.mPaint);
+        }
+
+        // Wait for the first layout, or for buffers that were released
+        if (config.mSwapChain == null) return;
+
+        // New buffers start out clear
+        if (applied == null || config.mSwapChain != applied.mSwapChain) {
+            Bitmap back = config.mSwapChain.getBackBitmap();
+            mTrailTiles = config.mRasterizer == null ? new TrailTiles(back.getWidth(), back.getHeight()) : null;
+        }
+
+        int count = getActiveStarCount(config.mCount);
+
+        if (mStarField == null || config.mFieldGeneration != applied.mFieldGeneration) {
+            mStarField = new CircularStarfield(config.mFieldWidth, config.mFieldHeight, count,
+                    config.mSize, mFieldPaint, config.mSpawnMode, config.mSeed);
+
+            // Pick up where a parked or saved starfield left off
+            char[] restored = mRestoredStars.get();
+            char[] stars = mParkedStars != null && mParkedGeneration == config.mFieldGeneration
+                    ? mParkedStars : restored;
+            mParkedStars = null;
+
+            if (stars != null) {
+                mStarField.restoreState(stars);
+            }
+
+            // Saves fall back on the restored stars until now
+            packStars();
+            mRestoredStars.compareAndSet(restored, null);
+
+            // Time from the change that asked for it
+            mFirstFrameStart = config.mPublishTime;
+            mWarmUp = config.mWarmStart;
+        } else {
+            if (config.mFieldWidth != applied.mFieldWidth || config.mFieldHeight != applied.mFieldHeight) {
+                mStarField.resize(config.mFieldWidth, config.mFieldHeight);
+            }
+
+            mStarField.setCount(count);
+            mStarField.setSize(config.mSize);
+
+            if (config.mSeed != applied.mSeed) {
+                mStarField.setSeed(config.mSeed);
+            }
+        }
+
+        mStarField.setLookupTable(config.mLookupTable);
+        mStarField.setRenderMode(config.mRenderMode);
+        mStarField.setParallel(config.mParallel);
+
+        // New rasterizers start at the right size
+        if (config.mRasterizer != null && applied != null && config.mRasterizer == applied.mRasterizer
+                && config.mSize != applied.mSize) {
+            config.mRasterizer.setSize(config.mSize);
         }
     }
 
+    /**
+     * Publish a snapshot of the current configuration to the animator thread. Only called on the UI
+     * thread.
+     */
+    private void publishConfig() {
+        mConfig = new Config(this);
+    }
+
+    /**
+     * Get the number of stars to animate, after any reduction by the quality governor.
+     *
+     * @param count Requested number of stars.
+     * @return Number of stars.
+     */
+    private int getActiveStarCount(int count) {
+        QualityGovernor governor = mGovernor;
+
+        if (governor == null) return count;
+
+        return Math.max(1, Math.round(count * governor.getStarShare()));
+    }
+
     /**
      * Check if the layout direction for the given view or configuration is left-to-right.
      *
@@ -253,7 +912,7 @@ public class StarfieldView extends AnimatorView {
      * @param dp      Density pixels to convert.
      * @return The pixel resolution.
      */
-    private static int dpToPixels(@NonNull Context context, @Dimension float dp) {
+    static int dpToPixels(@NonNull Context context, @Dimension float dp) {
         return (int) (dp * context.getResources().getDisplayMetrics().density + 0.5f);
     }
 
@@ -308,6 +967,71 @@ public class StarfieldView extends AnimatorView {
      */
     public void setStarAlpha(float starAlpha) {
         mStarAlpha = starAlpha;
+        publishConfig();
+    }
+
+    /**
+     * Check if the frame buffers store star coverage only. Frames are tinted with the star color
+     * when drawn.
+     *
+     * @return True if alpha only.
+     */
+    public boolean isStarAlphaOnly() {
+        return mStarAlphaOnly;
+    }
+
+    /**
+     * Set if the frame buffers store star coverage only. Frames are tinted with the star color when
+     * drawn, which takes a quarter of the memory. This has no effect on the software backend.
+     *
+     * @param starAlphaOnly True if alpha only.
+     */
+    public void setStarAlphaOnly(boolean starAlphaOnly) {
+        mStarAlphaOnly = starAlphaOnly;
+        mInvalidBuffers = true;
+        requestLayout();
+    }
+
+    /**
+     * Get the backend used to draw the stars.
+     *
+     * @return Either {@link #BACKEND_CANVAS} or {@link #BACKEND_PIXELS}.
+     */
+    public int getStarBackend() {
+        return mStarBackend;
+    }
+
+    /**
+     * Set the backend used to draw the stars. The software backend is often faster for very dense
+     * starfields since it avoids a draw call per star.
+     *
+     * @param starBackend Either {@link #BACKEND_CANVAS} or {@link #BACKEND_PIXELS}.
+     */
+    public void setStarBackend(int starBackend) {
+        mStarBackend = starBackend;
+        mInvalidBuffers = true;
+        requestLayout();
+    }
+
+    /**
+     * Get the number of frame buffers used to hand frames to the UI thread.
+     *
+     * @return Either {@link FrameSwapChain#DOUBLE_BUFFER} or {@link FrameSwapChain#TRIPLE_BUFFER}.
+     */
+    public int getStarBuffering() {
+        return mStarBuffering;
+    }
+
+    /**
+     * Set the number of frame buffers used to hand frames to the UI thread. Double buffering saves
+     * memory but may skip frames.
+     *
+     * @param starBuffering Either {@link FrameSwapChain#DOUBLE_BUFFER} or {@link FrameSwapChain#TRIPLE_BUFFER}.
+     */
+    public void setStarBuffering(int starBuffering) {
+        mStarBuffering = starBuffering;
+        mInvalidBuffers = true;
+        requestLayout();
     }
 
     /**
@@ -327,6 +1051,8 @@ public class StarfieldView extends AnimatorView {
      */
     public void setStarColor(@ColorInt int color) {
         mStarPaint.setColor(color);
+        mPaintSnapshot = new Paint(mStarPaint);
+        publishConfig();
     }
 
     /**
@@ -339,15 +1065,274 @@ public class StarfieldView extends AnimatorView {
     }
 
     /**
-     * Set the number of stars created for the starfield effect. This eats resources.
+     * Set the number of stars created for the starfield effect. This eats resources. Only new stars
+     * are spawned, so it can be changed while animating.
      *
      * @param starCount Number of stars.
      */
     public void setStarCount(int starCount) {
         mStarCount = starCount;
+        publishConfig();
+    }
+
+    /**
+     * Get the frame time budget held by the quality governor. Zero means it is off.
+     *
+     * @return Frame budget in milliseconds.
+     */
+    public float getStarFrameBudget() {
+        return mStarFrameBudget;
+    }
+
+    /**
+     * Set the frame time budget held by the quality governor. When simulating and rendering a frame
+     * runs over budget, stars are shed a level at a time. They come back once there is plenty of
+     * headroom again. Zero turns it off.
+     *
+     * @param starFrameBudget Frame budget in milliseconds.
+     */
+    public void setStarFrameBudget(float starFrameBudget) {
+        mStarFrameBudget = starFrameBudget;
+        mGovernor = starFrameBudget > 0 ? new QualityGovernor(starFrameBudget) : null;
+
+        publishConfig();
+    }
+
+    /**
+     * Check if frame metrics are being recorded.
+     *
+     * @return True if enabled.
+     */
+    public boolean isMetricsEnabled() {
+        return mMetrics != null;
+    }
+
+    /**
+     * Set if frame metrics are recorded. They cost next to nothing while disabled. Enabling them
+     * again starts from zero.
+     *
+     * @param metricsEnabled True to enable.
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        if (metricsEnabled == (mMetrics != null)) return;
+
+        if (metricsEnabled) {
+            FrameMetrics metrics = new FrameMetrics();
+            metrics.setBufferBytes(getBufferBytes());
+            metrics.setFirstFrameTime(mFirstFrameTime);
+
+            mMetrics = metrics;
+        } else {
+            mMetrics = null;
+        }
+    }
+
+    /**
+     * Get a snapshot of the frame metrics recorded so far.
+     *
+     * @return Metrics snapshot, or null when disabled.
+     */
+    @Nullable
+    public FrameMetrics.Snapshot getMetrics() {
+        FrameMetrics metrics = mMetrics;
+        return metrics != null ? metrics.snapshot() : null;
+    }
+
+    /**
+     * Get the time it took to show the first frame of the current starfield, measured from the
+     * layout or change that built it. This includes any warm start.
+     *
+     * @return Time in milliseconds, or -1 before the first frame.
+     */
+    public long getFirstFrameTime() {
+        return mFirstFrameTime;
+    }
+
+    /**
+     * Set a listener to hear about the frame metrics about once a second while they are enabled.
+     *
+     * @param onMetricsListener Listener, or null to remove.
+     */
+    public void setOnMetricsListener(@Nullable FrameMetrics.OnMetricsListener onMetricsListener) {
+        mOnMetricsListener = onMetricsListener;
+    }
+
+    /**
+     * Get the current quality level picked by the governor. Zero is full quality.
+     *
+     * @return Level from 0 to {@link QualityGovernor#MAX_LEVEL}.
+     */
+    public int getQualityLevel() {
+        QualityGovernor governor = mGovernor;
+        return governor != null ? governor.getLevel() : 0;
+    }
+
+    /**
+     * Get the target frame rate of the animation. Zero means every display frame.
+     *
+     * @return Frames per second.
+     */
+    public int getStarFrameRate() {
+        return mStarFrameRate;
+    }
+
+    /**
+     * Set the target frame rate of the animation. Zero means every display frame. The starfield
+     * moves at the same speed whatever the frame rate.
+     *
+     * @param starFrameRate Frames per second.
+     */
+    public void setStarFrameRate(int starFrameRate) {
+        mStarFrameRate = starFrameRate;
+        mFrameInterval = FrameClock.getFrameInterval(starFrameRate);
+        publishConfig();
+    }
+
+    /**
+     * Check if reborn stars take their direction from a quantized trig table.
+     *
+     * @return True if using the lookup table.
+     */
+    public boolean isStarLookupTable() {
+        return mStarLookupTable;
+    }
+
+    /**
+     * Set if reborn stars take their direction from a quantized trig table. This is cheaper when many
+     * stars respawn every frame.
+     *
+     * @param starLookupTable True to use the lookup table.
+     */
+    public void setStarLookupTable(boolean starLookupTable) {
+        mStarLookupTable = starLookupTable;
+        publishConfig();
+    }
+
+    /**
+     * Check if large starfields are advanced on multiple cores.
+     *
+     * @return True if parallel.
+     */
+    public boolean isStarParallel() {
+        return mStarParallel;
+    }
+
+    /**
+     * Set if large starfields are advanced on multiple cores. Small starfields are always advanced
+     * on the animator thread.
+     *
+     * @param starParallel True if parallel.
+     */
+    public void setStarParallel(boolean starParallel) {
+        mStarParallel = starParallel;
+        publishConfig();
+    }
+
+    /**
+     * Get the way stars are rendered.
+     *
+     * @return Either {@link CircularStarfield#RENDER_CIRCLES} or {@link CircularStarfield#RENDER_POINTS}.
+     */
+    public int getStarRenderMode() {
+        return mStarRenderMode;
+    }
+
+    /**
+     * Set the way stars are rendered. Batched points are cheaper for large starfields but the star
+     * sizes are quantized.
+     *
+     * @param starRenderMode Either {@link CircularStarfield#RENDER_CIRCLES} or {@link CircularStarfield#RENDER_POINTS}.
+     */
+    public void setStarRenderMode(int starRenderMode) {
+        mStarRenderMode = starRenderMode;
+        publishConfig();
+    }
+
+    /**
+     * Check if frames rendered below full resolution are filtered when scaled up.
+     *
+     * @return True if filtered.
+     */
+    public boolean isStarRenderFilter() {
+        return mStarRenderFilter;
+    }
+
+    /**
+     * Set if frames rendered below full resolution are filtered when scaled up. Filtering looks
+     * softer, without it the stars look blocky.
+     *
+     * @param starRenderFilter True if filtered.
+     */
+    public void setStarRenderFilter(boolean starRenderFilter) {
+        mStarRenderFilter = starRenderFilter;
+        mFramePaint.setFilterBitmap(starRenderFilter);
+        invalidate();
+    }
+
+    /**
+     * Get the fraction of the view resolution that the stars are rendered at.
+     *
+     * @return Render scale.
+     */
+    public float getStarRenderScale() {
+        return mStarRenderScale;
+    }
+
+    /**
+     * Set the fraction of the view resolution that the stars are rendered at. Frames are scaled up
+     * when drawn, which saves memory and fill rate on very large displays.
+     *
+     * @param starRenderScale Render scale from 0 to 1.
+     */
+    public void setStarRenderScale(float starRenderScale) {
+        mStarRenderScale = starRenderScale;
+        mInvalidBuffers = true;
         requestLayout();
     }
 
+    /**
+     * Get the seed the stars are generated from.
+     *
+     * @return Random seed.
+     */
+    public long getStarSeed() {
+        return mStarSeed;
+    }
+
+    /**
+     * Set the seed the stars are generated from. The starfield is generated again, and the same
+     * seed, size and settings always give the same frames, which is useful for visual tests.
+     *
+     * @param starSeed Random seed.
+     */
+    public void setStarSeed(long starSeed) {
+        mStarSeed = starSeed;
+        publishConfig();
+    }
+
+    /**
+     * Get where new stars are placed.
+     *
+     * @return Either {@link CircularStarfield#SPAWN_DISC} or {@link CircularStarfield#SPAWN_VISIBLE}.
+     */
+    public int getStarSpawnMode() {
+        return mStarSpawnMode;
+    }
+
+    /**
+     * Set where new stars are placed. Spawning over the visible area only keeps the same density
+     * with fewer stars, which helps views that are far from square.
+     *
+     * @param starSpawnMode Either {@link CircularStarfield#SPAWN_DISC} or {@link CircularStarfield#SPAWN_VISIBLE}.
+     */
+    public void setStarSpawnMode(int starSpawnMode) {
+        mStarSpawnMode = starSpawnMode;
+        mRestoredStars.set(null);
+        mPackedStars = null;
+        mFieldGeneration++;
+        publishConfig();
+    }
+
     /**
      * Get the value used to determine largest possible size when generating stars.
      *
@@ -358,13 +1343,14 @@ public class StarfieldView extends AnimatorView {
     }
 
     /**
-     * Set the value used to determine largest possible size when generating stars.
+     * Set the value used to determine largest possible size when generating stars. Existing stars
+     * are rescaled in place.
      *
      * @param starSize Maximum star size.
      */
     public void setStarSize(float starSize) {
         mStarSize = starSize;
-        requestLayout();
+        publishConfig();
     }
 
     /**
@@ -383,10 +1369,51 @@ public class StarfieldView extends AnimatorView {
      */
     public void setStarSpeed(float starSpeed) {
         mStarSpeed = starSpeed;
+        publishConfig();
+    }
+
+    /**
+     * Get how the view gives memory back while it is hidden or under pressure.
+     *
+     * @return Either {@link #MEMORY_KEEP}, {@link #MEMORY_TRIM} or {@link #MEMORY_HIDDEN}.
+     */
+    public int getStarMemoryPolicy() {
+        return mStarMemoryPolicy;
+    }
+
+    /**
+     * Set how the view gives memory back while it is hidden or under pressure. Released buffers are
+     * allocated again when the window is shown, and the stars carry on where they left off.
+     *
+     * @param starMemoryPolicy Either {@link #MEMORY_KEEP}, {@link #MEMORY_TRIM} or {@link #MEMORY_HIDDEN}.
+     */
+    public void setStarMemoryPolicy(int starMemoryPolicy) {
+        mStarMemoryPolicy = starMemoryPolicy;
+    }
+
+    /**
+     * Check if new starfields are fast-forwarded to full trails before their first frame.
+     *
+     * @return True if warm starting.
+     */
+    public boolean isStarWarmStart() {
+        return mStarWarmStart;
+    }
+
+    /**
+     * Set if new starfields are fast-forwarded to full trails before their first frame. The work is
+     * done on the animator thread and is capped at {@value FrameClock#MAX_WARM_UP_TIME} ms.
+     *
+     * @param starWarmStart True to warm start.
+     */
+    public void setStarWarmStart(boolean starWarmStart) {
+        mStarWarmStart = starWarmStart;
+        publishConfig();
     }
 
     /**
-     * Get the star paint. It can be used to get other properties not available directly.
+     * Get the star paint. It can be used to get other properties not available directly. Changes
+     * made to it are picked up once it is set again.
      *
      * @return Paint used for stars.
      */
@@ -401,6 +1428,113 @@ public class StarfieldView extends AnimatorView {
      */
     public void setStarPaint(Paint starPaint) {
         mStarPaint = starPaint;
-        requestLayout();
+        mPaintSnapshot = new Paint(starPaint);
+        publishConfig();
+    }
+
+    /**
+     * Immutable snapshot of everything the animator thread needs from the view. The UI thread
+     * publishes a new one through a volatile field whenever something changes, so a frame always
+     * sees a whole configuration and never takes a lock.
+     */
+    private static final class Config {
+
+        private final float mAlpha;
+        private final float mSpeed;
+        private final long mFrameInterval;
+        private final int mCount;
+        private final float mSize;
+        private final boolean mLookupTable;
+        private final boolean mParallel;
+        private final int mRenderMode;
+        private final int mSpawnMode;
+        private final long mSeed;
+        private final Paint mPaint;
+        private final int mFieldWidth;
+        private final int mFieldHeight;
+        private final int mFieldGeneration;
+        private final FrameSwapChain mSwapChain;
+        private final PixelRasterizer mRasterizer;
+        private final float mFrameScale;
+        private final boolean mWarmStart;
+        private final long mPublishTime;
+
+        /**
+         * Constructor to copy the current values from the view.
+         *
+         * @param view View to copy from.
+         */
+        private Config(@NonNull StarfieldView view) {
+            mAlpha = view.mStarAlpha;
+            mSpeed = view.mStarSpeed;
+            mFrameInterval = view.mFrameInterval;
+            mCount = view.mStarCount;
+            mSize = view.mStarSize;
+            mLookupTable = view.mStarLookupTable;
+            mParallel = view.mStarParallel;
+            mRenderMode = view.mStarRenderMode;
+            mSpawnMode = view.mStarSpawnMode;
+            mSeed = view.mStarSeed;
+            mPaint = view.mPaintSnapshot;
+            mFieldWidth = view.mFieldWidth;
+            mFieldHeight = view.mFieldHeight;
+            mFieldGeneration = view.mFieldGeneration;
+            mSwapChain = view.mSwapChain;
+            mRasterizer = view.mRasterizer;
+            mFrameScale = view.mFrameScale;
+            mWarmStart = view.mStarWarmStart;
+            mPublishTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * State of the view to keep across configuration changes and process recreation. Stars are
+     * packed by {@link CircularStarfield#saveState(int)}, so they fit any new size.
+     */
+    static class SavedState extends BaseSavedState {
+
+        long mSeed;
+        char[] mStars;
+
+        /**
+         * Constructor used when saving the view.
+         *
+         * @param superState State of the superclass.
+         */
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        /**
+         * Constructor used when reading the state back from a parcel.
+         *
+         * @param source Parcel to read from.
+         */
+        private SavedState(Parcel source) {
+            super(source);
+
+            mSeed = source.readLong();
+            mStars = source.createCharArray();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+
+            out.writeLong(mSeed);
+            out.writeCharArray(mStars);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel source) {
+                return new SavedState(source);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
     }
 }
\ No newline at end of file
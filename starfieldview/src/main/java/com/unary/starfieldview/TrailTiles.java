@@ -0,0 +1,195 @@
+package com.unary.starfieldview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Tracks which tiles of the frame buffers hold star trails for the canvas backend. Each tile keeps
+ * an upper bound on how bright its trails can still be, so copying the previous frame forward only
+ * touches tiles that are still lit. Tiles that faded out are cleared once and then left alone.
+ *
+ * <p>Each buffer in the swap chain remembers the tiles it was left with, since it is drawn over
+ * again a few frames later. Only used on the animator thread.</p>
+ */
+final class TrailTiles {
+
+    private static final int TILE_SHIFT = 5; // 32 px
+    private static final int TILE_SIZE = 1 << TILE_SHIFT;
+    private static final float MIN_LEVEL = 1 / 255f;
+
+    private static final int SKIP = 0;
+    private static final int COPY = 1;
+    private static final int CLEAR = 2;
+
+    private final int mWidth;
+    private final int mHeight;
+    private final int mTilesX;
+    private final int mTilesY;
+    private final float[] mLevels;
+    private final Bitmap[] mBuffers = new Bitmap[FrameSwapChain.TRIPLE_BUFFER];
+    private final boolean[][] mBufferLit = new boolean[FrameSwapChain.TRIPLE_BUFFER][];
+    private final Paint mClearPaint;
+    private final Rect mRect = new Rect();
+
+    /**
+     * Constructor for the buffers of a swap chain. New buffers start out transparent.
+     *
+     * @param width  The buffer width.
+     * @param height The buffer height.
+     */
+    TrailTiles(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+        mTilesX = (width + TILE_SIZE - 1) >> TILE_SHIFT;
+        mTilesY = (height + TILE_SIZE - 1) >> TILE_SHIFT;
+        mLevels = new float[mTilesX * mTilesY];
+
+        for (int i = 0; i < mBufferLit.length; i++) {
+            mBufferLit[i] = new boolean[mLevels.length];
+        }
+
+        mClearPaint = new Paint();
+        mClearPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+    }
+
+    /**
+     * Copy the lit tiles of the previous frame into the back buffer while fading them, and clear
+     * the tiles of the back buffer that are no longer lit. Neighbouring tiles are drawn together.
+     *
+     * @param canvas    Canvas of the back buffer.
+     * @param back      Back buffer.
+     * @param previous  Previous frame.
+     * @param fadePaint Paint that copies and fades in one pass.
+     */
+    void copyForward(@NonNull Canvas canvas, @NonNull Bitmap back, @NonNull Bitmap previous,
+                     @NonNull Paint fadePaint) {
+        float keep = fadePaint.getAlpha() / 255f;
+        boolean[] backLit = getBufferLit(back);
+
+        for (int ty = 0; ty < mTilesY; ty++) {
+            int runStart = 0;
+            int runAction = SKIP;
+
+            for (int tx = 0; tx <= mTilesX; tx++) {
+                int action = SKIP;
+
+                if (tx < mTilesX) {
+                    int tile = ty * mTilesX + tx;
+                    float level = mLevels[tile] * keep;
+
+                    // Trails below one level round away
+                    if (level < MIN_LEVEL) level = 0;
+
+                    mLevels[tile] = level;
+
+                    if (level > 0) {
+                        action = COPY;
+                    } else if (backLit[tile]) {
+                        action = CLEAR;
+                    }
+                }
+
+                if (action != runAction) {
+                    drawRun(canvas, previous, fadePaint, runAction, runStart, tx, ty);
+                    runStart = tx;
+                    runAction = action;
+                }
+            }
+        }
+    }
+
+    /**
+     * Draw a run of tiles in a single row.
+     *
+     * @param canvas    Canvas of the back buffer.
+     * @param previous  Previous frame.
+     * @param fadePaint Paint that copies and fades in one pass.
+     * @param action    What to do with the run.
+     * @param from      First tile, inclusive.
+     * @param to        Last tile, exclusive.
+     * @param ty        Tile row.
+     */
+    private void drawRun(@NonNull Canvas canvas, @NonNull Bitmap previous, @NonNull Paint fadePaint,
+                         int action, int from, int to, int ty) {
+        if (action == SKIP || from >= to) return;
+
+        mRect.set(from << TILE_SHIFT, ty << TILE_SHIFT,
+                Math.min(mWidth, to << TILE_SHIFT), Math.min(mHeight, (ty + 1) << TILE_SHIFT));
+
+        if (action == COPY) {
+            canvas.drawBitmap(previous, mRect, mRect, fadePaint);
+        } else {
+            canvas.drawRect(mRect, mClearPaint);
+        }
+    }
+
+    /**
+     * Mark the tiles under a star as fully lit. Antialiasing is allowed for with a pixel of
+     * padding.
+     *
+     * @param left   Left edge in buffer pixels.
+     * @param top    Top edge in buffer pixels.
+     * @param right  Right edge in buffer pixels.
+     * @param bottom Bottom edge in buffer pixels.
+     */
+    void mark(float left, float top, float right, float bottom) {
+        int startX = Math.max(0, (int) (left - 1)) >> TILE_SHIFT;
+        int startY = Math.max(0, (int) (top - 1)) >> TILE_SHIFT;
+        int endX = Math.min(mWidth - 1, (int) (right + 1)) >> TILE_SHIFT;
+        int endY = Math.min(mHeight - 1, (int) (bottom + 1)) >> TILE_SHIFT;
+
+        for (int ty = startY; ty <= endY; ty++) {
+            for (int tx = startX; tx <= endX; tx++) {
+                mLevels[ty * mTilesX + tx] = 1;
+            }
+        }
+    }
+
+    /**
+     * Mark every tile as fully lit, for frames drawn without tracking.
+     */
+    void markAll() {
+        for (int i = 0; i < mLevels.length; i++) {
+            mLevels[i] = 1;
+        }
+    }
+
+    /**
+     * Remember the lit tiles of the back buffer once it is rendered and about to be posted.
+     *
+     * @param back Back buffer.
+     */
+    void post(@NonNull Bitmap back) {
+        boolean[] backLit = getBufferLit(back);
+
+        for (int i = 0; i < mLevels.length; i++) {
+            backLit[i] = mLevels[i] > 0;
+        }
+    }
+
+    /**
+     * Get the lit tiles a buffer was last left with.
+     *
+     * @param buffer Buffer of the swap chain.
+     * @return Lit tiles.
+     */
+    private boolean[] getBufferLit(@NonNull Bitmap buffer) {
+        for (int i = 0; i < mBuffers.length; i++) {
+            if (mBuffers[i] == buffer) return mBufferLit[i];
+
+            // First time this buffer is seen
+            if (mBuffers[i] == null) {
+                mBuffers[i] = buffer;
+                return mBufferLit[i];
+            }
+        }
+
+        throw new IllegalStateException("More buffers than a swap chain holds");
+    }
+}
@@ -0,0 +1,196 @@
+package com.unary.starfieldview;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Small fixed pool of daemon threads that splits a ranged job across cores. The calling thread
+ * works on one of the partitions and then waits for the rest, so nothing is allocated per job.
+ */
+public class WorkerPool {
+
+    private static final int MAX_WORKERS = 3;
+    private static final int ALIGNMENT = 16; // indices
+
+    private static WorkerPool sInstance;
+
+    private final Object mJobLock = new Object();
+    private final Object mLock = new Object();
+    private final Thread[] mWorkers;
+    private RangeTask mTask;
+    private int mLength;
+    private int mGeneration;
+    private int mPending;
+    private RuntimeException mFailure;
+
+    /**
+     * Interface for a job that can be split into index ranges and run concurrently.
+     */
+    public interface RangeTask {
+
+        /**
+         * Run the job over a range of indices. Ranges never overlap.
+         *
+         * @param from First index, inclusive.
+         * @param to   Last index, exclusive.
+         */
+        void run(int from, int to);
+    }
+
+    /**
+     * Constructor for a pool with the given number of worker threads.
+     *
+     * @param workers Number of threads besides the caller.
+     */
+    public WorkerPool(int workers) {
+        mWorkers = new Thread[workers];
+
+        for (int i = 0; i < workers; i++) {
+            final int part = i;
+
+            mWorkers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    work(part);
+                }
+            }, "StarfieldWorker-" + i);
+            mWorkers[i].setDaemon(true);
+            mWorkers[i].start();
+        }
+    }
+
+    /**
+     * Get the pool shared by all starfields. It is sized to the available cores.
+     *
+     * @return Shared worker pool.
+     */
+    @NonNull
+    public static synchronized WorkerPool getInstance() {
+        if (sInstance == null) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            sInstance = new WorkerPool(Math.max(1, Math.min(MAX_WORKERS, cores - 1)));
+        }
+
+        return sInstance;
+    }
+
+    /**
+     * Get the number of partitions a job is split into, including the caller.
+     *
+     * @return Number of partitions.
+     */
+    public int getParallelism() {
+        return mWorkers.length + 1;
+    }
+
+    /**
+     * Run a job across the pool and block until every partition is done. Only one job runs at a
+     * time, and a failure in any partition is rethrown once the rest have finished.
+     *
+     * @param task   Job to run.
+     * @param length Number of indices.
+     */
+    public void execute(@NonNull RangeTask task, int length) {
+        synchronized (mJobLock) {
+            int parts = getParallelism();
+            boolean interrupted = false;
+
+            synchronized (mLock) {
+                mTask = task;
+                mLength = length;
+                mPending = mWorkers.length;
+                mFailure = null;
+                mGeneration++;
+                mLock.notifyAll();
+            }
+
+            try {
+                // Caller takes the last partition
+                task.run(getBoundary(parts - 1, parts, length), length);
+            } finally {
+                // Workers must finish even if the caller failed, or the next job overlaps
+                synchronized (mLock) {
+                    while (mPending > 0) {
+                        try {
+                            mLock.wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+
+                    mTask = null;
+                }
+
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (mFailure != null) {
+                throw mFailure;
+            }
+        }
+    }
+
+    /**
+     * Loop run by each worker thread waiting on the next job.
+     *
+     * @param part Partition owned by the worker.
+     */
+    private void work(int part) {
+        int parts = getParallelism();
+        int generation = 0;
+
+        while (true) {
+            RangeTask task;
+            int length;
+
+            synchronized (mLock) {
+                while (mGeneration == generation) {
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+
+                generation = mGeneration;
+                task = mTask;
+                length = mLength;
+            }
+
+            RuntimeException failure = null;
+
+            try {
+                task.run(getBoundary(part, parts, length), getBoundary(part + 1, parts, length));
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+
+            synchronized (mLock) {
+                if (failure != null) {
+                    mFailure = failure;
+                }
+
+                if (--mPending == 0) {
+                    mLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Utility method to find where a partition starts. Boundaries are aligned so that neighbouring
+     * partitions don't write to the same cache line.
+     *
+     * @param part   Partition index.
+     * @param parts  Number of partitions.
+     * @param length Number of indices.
+     * @return First index of the partition.
+     */
+    private static int getBoundary(int part, int parts, int length) {
+        if (part >= parts) return length;
+
+        int boundary = (int) ((long) length * part / parts);
+        return boundary - boundary % ALIGNMENT;
+    }
+}
@@ -0,0 +1,71 @@
+package com.unary.starfieldview;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the radial simulation. Stars are generated from a counter based random
+ * source, so the same seed must give the same stars however the updates are run.
+ */
+public class RadialSimulationTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int COUNT = 20000;
+    private static final float SIZE = 4;
+    private static final float SPEED = 8;
+    private static final long SEED = 42;
+    private static final int STEPS = 300;
+
+    @Test
+    public void update_parallelMatchesSerial() {
+        for (int spawnMode : new int[]{RadialSimulation.SPAWN_DISC, RadialSimulation.SPAWN_VISIBLE}) {
+            RadialSimulation serial = new RadialSimulation(WIDTH, HEIGHT, COUNT, SIZE, spawnMode, SEED);
+            RadialSimulation parallel = new RadialSimulation(WIDTH, HEIGHT, COUNT, SIZE, spawnMode, SEED);
+            parallel.setParallel(true);
+            parallel.setParallelThreshold(0);
+
+            for (int i = 0; i < STEPS; i++) {
+                serial.update(SPEED);
+                parallel.update(SPEED);
+            }
+
+            assertEquals(serial.getRespawns(), parallel.getRespawns());
+            assertArrayEquals(resolve(serial), resolve(parallel), 0);
+            assertArrayEquals(serial.saveState(COUNT), parallel.saveState(COUNT));
+        }
+    }
+
+    @Test
+    public void seed_reproducesStarfield() {
+        int spawnMode = RadialSimulation.SPAWN_DISC;
+        RadialSimulation first = new RadialSimulation(WIDTH, HEIGHT, COUNT, SIZE, spawnMode, SEED);
+        RadialSimulation second = new RadialSimulation(WIDTH, HEIGHT, COUNT, SIZE, spawnMode, SEED);
+        RadialSimulation other = new RadialSimulation(WIDTH, HEIGHT, COUNT, SIZE, spawnMode, SEED + 1);
+
+        for (int i = 0; i < STEPS; i++) {
+            first.update(SPEED);
+            second.update(SPEED);
+            other.update(SPEED);
+        }
+
+        assertArrayEquals(resolve(first), resolve(second), 0);
+        assertFalse(Arrays.equals(first.saveState(COUNT), other.saveState(COUNT)));
+    }
+
+    /**
+     * Resolve the visible stars into an array of exactly their size.
+     *
+     * @param simulation Simulation to resolve.
+     * @return Positions and radii.
+     */
+    private static float[] resolve(RadialSimulation simulation) {
+        float[] out = new float[simulation.getCount() * 3];
+        int visible = simulation.resolve(out);
+
+        return Arrays.copyOf(out, visible * 3);
+    }
+}
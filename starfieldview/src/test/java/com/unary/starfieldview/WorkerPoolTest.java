@@ -0,0 +1,158 @@
+package com.unary.starfieldview;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the worker pool. Each test uses its own pool so they don't share workers.
+ */
+public class WorkerPoolTest {
+
+    private static final int WORKERS = 3;
+
+    @Test
+    public void execute_coversEveryIndexOnce() {
+        WorkerPool pool = new WorkerPool(WORKERS);
+
+        for (int length : new int[]{0, 1, 15, 16, 17, 100, 10007}) {
+            final int[] counts = new int[length];
+
+            pool.execute(new WorkerPool.RangeTask() {
+                @Override
+                public void run(int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        counts[i]++;
+                    }
+                }
+            }, length);
+
+            for (int i = 0; i < length; i++) {
+                assertEquals("index " + i + " of " + length, 1, counts[i]);
+            }
+        }
+    }
+
+    @Test
+    public void execute_fromSeveralThreads() throws InterruptedException {
+        final WorkerPool pool = new WorkerPool(WORKERS);
+        final int threads = 4;
+        final int jobs = 500;
+        final int length = 1000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] callers = new Thread[threads];
+
+        for (int t = 0; t < threads; t++) {
+            callers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final int[] counts = new int[length];
+
+                    try {
+                        start.await();
+
+                        for (int j = 0; j < jobs; j++) {
+                            pool.execute(new WorkerPool.RangeTask() {
+                                @Override
+                                public void run(int from, int to) {
+                                    for (int i = from; i < to; i++) {
+                                        counts[i]++;
+                                    }
+                                }
+                            }, length);
+                        }
+
+                        // Every job finished before execute returned
+                        for (int i = 0; i < length; i++) {
+                            assertEquals(jobs, counts[i]);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            callers[t].start();
+        }
+
+        start.countDown();
+
+        for (Thread caller : callers) {
+            caller.join(30000);
+            assertFalse("caller still running", caller.isAlive());
+        }
+
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void execute_rethrowsWorkerFailure() {
+        WorkerPool pool = new WorkerPool(WORKERS);
+        final IllegalStateException thrown = new IllegalStateException();
+
+        try {
+            // The first partition always belongs to a worker
+            pool.execute(new WorkerPool.RangeTask() {
+                @Override
+                public void run(int from, int to) {
+                    if (from == 0) throw thrown;
+                }
+            }, 1000);
+            fail("expected the failure to be rethrown");
+        } catch (IllegalStateException e) {
+            assertSame(thrown, e);
+        }
+
+        // Still usable afterwards
+        final int[] counts = new int[1000];
+
+        pool.execute(new WorkerPool.RangeTask() {
+            @Override
+            public void run(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    counts[i]++;
+                }
+            }
+        }, counts.length);
+
+        for (int count : counts) {
+            assertEquals(1, count);
+        }
+    }
+
+    @Test
+    public void execute_waitsForWorkersWhenCallerFails() {
+        final WorkerPool pool = new WorkerPool(WORKERS);
+        final AtomicInteger finished = new AtomicInteger();
+        final IllegalStateException thrown = new IllegalStateException();
+        final int length = 1000;
+
+        try {
+            // The last partition always belongs to the caller
+            pool.execute(new WorkerPool.RangeTask() {
+                @Override
+                public void run(int from, int to) {
+                    if (to == length) throw thrown;
+
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    finished.incrementAndGet();
+                }
+            }, length);
+            fail("expected the failure to be rethrown");
+        } catch (IllegalStateException e) {
+            assertSame(thrown, e);
+        }
+
+        // No worker may still be running the failed job
+        assertEquals(pool.getParallelism() - 1, finished.get());
+    }
+}